@@ -0,0 +1,79 @@
+package com.jfern.ltclient.benchmarks;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+
+/**
+ * Runs the benchmarks with the JMH GC profiler and prints the bytes allocated per operation, the number to watch when
+ * changing the encoding or parsing code. Arguments: the benchmarks to run (regular expressions), by default the encoding
+ * and parsing ones.
+ * <pre>
+ * java -cp target/benchmarks.jar com.jfern.ltclient.benchmarks.AllocationProfile [EncodingBenchmark ParsingBenchmark ...]
+ * </pre>
+ * The same numbers are available for any run with {@code java -jar target/benchmarks.jar -prof gc}.
+ */
+public class AllocationProfile {
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder builder = new OptionsBuilder();
+        if (args.length == 0)
+            args = new String[]{EncodingBenchmark.class.getSimpleName(), ParsingBenchmark.class.getSimpleName()};
+        for (String include : args)
+            builder.include(include);
+
+        Options options = builder
+                .addProfiler(GCProfiler.class)
+                .warmupIterations(2)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(3)
+                .measurementTime(TimeValue.seconds(1))
+                .forks(1)
+                .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+
+        System.out.println();
+        System.out.printf("%-60s %-25s %15s%n", "Benchmark", "Params", "B/op");
+        for (RunResult run : results) {
+            Result<?> allocated = run.getSecondaryResults().get("gc.alloc.rate.norm");
+            System.out.printf("%-60s %-25s %15.0f%n",
+                    run.getParams().getBenchmark(),
+                    run.getParams().getParamsKeys().stream().map(key -> key + "=" + run.getParams().getParam(key)).reduce((a, b) -> a + "," + b).orElse(""),
+                    allocated == null ? Double.NaN : allocated.getScore());
+        }
+    }
+}
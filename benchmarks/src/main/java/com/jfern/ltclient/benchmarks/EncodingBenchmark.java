@@ -0,0 +1,137 @@
+package com.jfern.ltclient.benchmarks;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.BenchmarkHooks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Url encoding of the request body, as done by LTClient before each check (through {@link BenchmarkHooks#encodeCheckForm}).
+ * urlEncoder is the String based encoding LTClient used before, copied from its first version, kept as baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncodingBenchmark {
+
+    @Param({"200", "10000", "1000000"})
+    int textLength;
+
+    String text;
+
+
+    @Setup
+    public void setup() {
+        text = Payloads.text(textLength);
+    }
+
+
+    @Benchmark
+    public byte[] formBodyEncoder() {
+        return BenchmarkHooks.encodeCheckForm("en-US", text, "picky");
+    }
+
+
+    @Benchmark
+    public byte[] urlEncoder() {
+        return getFormData("en-US", text, null, null, null, null, null, null, null, null, null, null, null, "picky").getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Parameters must sent in x-www-form-urlencoded, this function encodes all non NULL params
+     *
+     * @return String with the encoded params
+     */
+    private String getFormData(String language, String text, String data, String username, String apiKey, String dicts, String motherTongue, String preferedVariants, String enabledRules, String disabledRules, String enabledCategories, String disabledCategries, Boolean enabledOnly, String level) {
+        String formData = URLEncoder.encode("language", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(language, StandardCharsets.UTF_8);
+
+        if (text != null)
+            formData += "&" + URLEncoder.encode("text", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(text, StandardCharsets.UTF_8);
+
+        if (data != null)
+            formData += "&" + URLEncoder.encode("data", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(data, StandardCharsets.UTF_8);
+
+        if (username != null)
+            formData += "&" + URLEncoder.encode("username", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(username, StandardCharsets.UTF_8);
+
+        if (apiKey != null)
+            formData += "&" + URLEncoder.encode("apiKey", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(apiKey, StandardCharsets.UTF_8);
+
+        if (dicts != null)
+            formData += "&" + URLEncoder.encode("dicts", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(dicts, StandardCharsets.UTF_8);
+
+        if (motherTongue != null)
+            formData += "&" + URLEncoder.encode("motherTongue", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(motherTongue, StandardCharsets.UTF_8);
+
+        if (apiKey != null)
+            formData += "&" + URLEncoder.encode("apiKey", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(apiKey, StandardCharsets.UTF_8);
+
+        if (preferedVariants != null)
+            formData += "&" + URLEncoder.encode("preferedVariants", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(preferedVariants, StandardCharsets.UTF_8);
+
+        if (enabledRules != null)
+            formData += "&" + URLEncoder.encode("enabledRules", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(enabledRules, StandardCharsets.UTF_8);
+
+
+        if (disabledRules != null)
+            formData += "&" + URLEncoder.encode("disabledRules", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(disabledRules, StandardCharsets.UTF_8);
+
+        if (enabledCategories != null)
+            formData += "&" + URLEncoder.encode("enabledCategories", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(enabledCategories, StandardCharsets.UTF_8);
+
+
+        if (disabledCategries != null)
+            formData += "&" + URLEncoder.encode("disabledCategries", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(disabledCategries, StandardCharsets.UTF_8);
+
+
+        if (enabledOnly != null)
+            formData += "&" + URLEncoder.encode("enabledOnly", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(enabledOnly.toString(), StandardCharsets.UTF_8);
+
+
+        if (level != null)
+            formData += "&" + URLEncoder.encode("level", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(level, StandardCharsets.UTF_8);
+        return formData;
+    }
+}
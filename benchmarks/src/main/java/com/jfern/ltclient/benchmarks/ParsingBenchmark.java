@@ -0,0 +1,84 @@
+package com.jfern.ltclient.benchmarks;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.BenchmarkHooks;
+import com.jfern.ltclient.JsonBodyHandler;
+import com.jfern.ltclient.POJO.LTResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserialization of /v2/check responses, from a few matches (a sentence) to 20000 matches (a book):
+ * the whole response with {@link JsonBodyHandler}, and match by match like the streaming checks
+ * (through {@link BenchmarkHooks#parseMatchStream}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParsingBenchmark {
+
+    @Param({"5", "500", "20000"})
+    int matches;
+
+    byte[] response;
+
+
+    @Setup
+    public void setup() {
+        response = Payloads.response(matches);
+    }
+
+
+    @Benchmark
+    public LTResponse jsonBodyHandler() {
+        return JsonBodyHandler.toSupplierOfType(new ByteArrayInputStream(response), LTResponse.class).get();
+    }
+
+
+    @Benchmark
+    public LTResponse matchStream(Blackhole blackhole) throws IOException {
+        return BenchmarkHooks.parseMatchStream(new ByteArrayInputStream(response), blackhole::consume);
+    }
+}
@@ -0,0 +1,90 @@
+package com.jfern.ltclient.benchmarks;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Texts and LanguageTool responses used by the benchmarks.
+ */
+public final class Payloads {
+
+    private static final String SENTENCE = "Ésta é uma frase de exemplo, com acentos e \"aspas\" & símbolos; o texto tem erros como teh e recieve. ";
+
+    private static final String[][] RULES = {
+            {"MORFOLOGIK_RULE_EN_US", "TYPOS", "Possible Typo", "misspelling"},
+            {"UPPERCASE_SENTENCE_START", "CASING", "Capitalization", "typographical"},
+            {"COMMA_PARENTHESIS_WHITESPACE", "TYPOGRAPHY", "Typography", "whitespace"},
+            {"EN_A_VS_AN", "MISC", "Miscellaneous", "grammar"}
+    };
+
+    private Payloads() {
+    }
+
+
+    /**
+     * @return a text of the given length, with non ASCII and reserved characters like real texts
+     */
+    public static String text(int length) {
+        StringBuilder builder = new StringBuilder(length + SENTENCE.length());
+        while (builder.length() < length)
+            builder.append(SENTENCE);
+        builder.setLength(length);
+        return builder.toString();
+    }
+
+
+    /**
+     * @return a /v2/check response with the given number of matches
+     */
+    public static byte[] response(int matches) {
+        StringBuilder json = new StringBuilder(256 + matches * 600);
+        json.append("{\"software\":{\"name\":\"LanguageTool\",\"version\":\"6.4\",\"buildDate\":\"2024-03-28 14:27:06 +0100\",\"apiVersion\":1,\"premium\":false,\"status\":\"\"},")
+                .append("\"warnings\":{\"incompleteResults\":false},")
+                .append("\"language\":{\"name\":\"English (US)\",\"code\":\"en-US\",\"detectedLanguage\":{\"name\":\"English (US)\",\"code\":\"en-US\",\"confidence\":0.99}},")
+                .append("\"matches\":[");
+
+        for (int i = 0; i < matches; i++) {
+            String[] rule = RULES[i % RULES.length];
+            if (i > 0)
+                json.append(',');
+
+            json.append("{\"message\":\"Possible spelling mistake found.\",\"shortMessage\":\"Spelling mistake\",")
+                    .append("\"replacements\":[{\"value\":\"the\"},{\"value\":\"tea\"},{\"value\":\"ten\"}],")
+                    .append("\"offset\":").append(i * 20L).append(",\"length\":3,")
+                    .append("\"context\":{\"text\":\"...o texto tem erros como teh e recieve. Ésta é uma...\",\"offset\":24,\"length\":3},")
+                    .append("\"sentence\":\"o texto tem erros como teh e recieve.\",")
+                    .append("\"type\":{\"typeName\":\"Other\"},")
+                    .append("\"rule\":{\"id\":\"").append(rule[0]).append("\",\"description\":\"Possible spelling mistake\",\"issueType\":\"").append(rule[3])
+                    .append("\",\"urls\":[{\"value\":\"https://languagetool.org/insights/post/spelling/\"}],")
+                    .append("\"category\":{\"id\":\"").append(rule[1]).append("\",\"name\":\"").append(rule[2]).append("\"}},")
+                    .append("\"ignoreForIncompleteSentence\":false,\"contextForSureMatch\":0}");
+        }
+
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,138 @@
+package com.jfern.ltclient.benchmarks;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.LTBatchResult;
+import com.jfern.ltclient.LTClient;
+import com.jfern.ltclient.LTVirtualThreadBatch;
+import com.jfern.ltclient.POJO.LTResponse;
+import com.jfern.ltclient.testsupport.LTStubServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * End to end checks against an in-process {@link LTStubServer}: blocking check from several threads,
+ * checkAsync with many requests in flight, and the batch APIs (adaptive concurrency vs one virtual thread per text).
+ * Coalescing is disabled so every operation is a real HTTP exchange, and the forked JVM enables TCP_NODELAY in the stub
+ * server (see {@link LTStubServer}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@State(Scope.Benchmark)
+public class ThroughputBenchmark {
+
+    private static final int IN_FLIGHT = 64;
+
+    @Param({"5", "500"})
+    int matches;
+
+    LTStubServer server;
+    LTClient client;
+    String text;
+    List<String> texts;
+
+
+    @Setup
+    public void setup() throws IOException {
+        server = LTStubServer.builder().matches(matches).build();
+        //the stub only speaks HTTP/1.1, an HTTP/2 client would try an h2c upgrade on each new connection
+        client = LTClient.builder()
+                .serverURL(server.getUrl())
+                .httpVersion(HttpClient.Version.HTTP_1_1)
+                .requestCoalescing(false)
+                .build();
+        text = Payloads.text(1000);
+        texts = Collections.nCopies(IN_FLIGHT, text);
+    }
+
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        server.close();
+    }
+
+
+    @Benchmark
+    @Threads(8)
+    public LTResponse check() throws IOException, InterruptedException {
+        return client.check("en-US", text);
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation(IN_FLIGHT)
+    public List<LTResponse> checkAsync() {
+        List<CompletableFuture<HttpResponse<Supplier<LTResponse>>>> futures = new ArrayList<>(IN_FLIGHT);
+        for (int i = 0; i < IN_FLIGHT; i++)
+            futures.add(client.checkAsync("en-US", text));
+
+        List<LTResponse> responses = new ArrayList<>(IN_FLIGHT);
+        for (CompletableFuture<HttpResponse<Supplier<LTResponse>>> future : futures)
+            responses.add(future.join().body().get());
+        return responses;
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation(IN_FLIGHT)
+    public List<LTBatchResult> checkBatch() throws InterruptedException {
+        return client.checkBatch("en-US", texts);
+    }
+
+
+    @Benchmark
+    @OperationsPerInvocation(IN_FLIGHT)
+    public List<LTBatchResult> virtualThreads() throws InterruptedException {
+        return new LTVirtualThreadBatch(client, IN_FLIGHT).checkAll("en-US", texts);
+    }
+}
@@ -0,0 +1,121 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+/**
+ * Concurrency limit that adapts to the server using AIMD (additive increase, multiplicative decrease).
+ * Each successful request under the latency tolerance grows the limit by 1/limit (about one slot per round trip),
+ * overload responses (429/503) or latency above {@link #LATENCY_TOLERANCE} times the best observed latency shrink it.
+ */
+class AdaptiveConcurrencyLimiter {
+
+    static final double LATENCY_TOLERANCE = 2.0;
+    static final double BACKOFF_RATIO = 0.75;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private double limit;
+    private int inFlight;
+    private long minLatencyNanos = Long.MAX_VALUE;
+
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit)
+            throw new IllegalArgumentException("invalid limits: min=" + minLimit + " max=" + maxLimit);
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+
+    /**
+     * Blocks until a slot is free under the current limit.
+     */
+    synchronized void acquire() throws InterruptedException {
+        while (inFlight >= (int) limit)
+            wait();
+
+        inFlight++;
+    }
+
+
+    /**
+     * Releases a slot after a successful request.
+     *
+     * @param latencyNanos time the request took, used to detect server queueing
+     */
+    synchronized void onSuccess(long latencyNanos) {
+        minLatencyNanos = Math.min(minLatencyNanos, latencyNanos);
+
+        if (latencyNanos > minLatencyNanos * LATENCY_TOLERANCE)
+            decrease();
+        else
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+
+        release();
+    }
+
+
+    /**
+     * Releases a slot after the server signaled it is overloaded.
+     */
+    synchronized void onOverload() {
+        decrease();
+        release();
+    }
+
+
+    /**
+     * Releases a slot without changing the limit (errors that say nothing about server load).
+     */
+    synchronized void onIgnore() {
+        release();
+    }
+
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+    }
+
+
+    private void release() {
+        inFlight--;
+        notifyAll();
+    }
+}
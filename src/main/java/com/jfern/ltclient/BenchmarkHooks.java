@@ -0,0 +1,63 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTMatch;
+import com.jfern.ltclient.POJO.LTResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Entry points into package private code for the JMH benchmarks (the benchmarks module, in its own package),
+ * so the encoding and parsing can be measured without an HTTP exchange.
+ * <p>
+ * Not part of the API, it may change or be removed in any release.
+ */
+public final class BenchmarkHooks {
+
+    private BenchmarkHooks() {
+    }
+
+
+    /**
+     * @return the x-www-form-urlencoded body of a check request, as built by {@link LTClient} before sending it
+     */
+    public static byte[] encodeCheckForm(String language, String text, String level) {
+        return LTClient.getFormData(language, text, null, null, null, null, null, null, null, null, null, null, null, level);
+    }
+
+
+    /**
+     * Parses a /v2/check response like {@link LTClient#checkStreamingAsync(String, String, Consumer) checkStreamingAsync},
+     * handing each match to the consumer instead of keeping it in the response.
+     */
+    public static LTResponse parseMatchStream(InputStream stream, Consumer<LTMatch> consumer) throws IOException {
+        return MatchStreamBodyHandler.parse(stream, consumer);
+    }
+}
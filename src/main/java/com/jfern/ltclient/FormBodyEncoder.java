@@ -0,0 +1,156 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds x-www-form-urlencoded bodies straight into a byte array, with the same output as {@link java.net.URLEncoder}
+ * with UTF-8 (unpaired surrogates are encoded as '?').
+ * <p>
+ * The encoded length is computed first, so the body is written into a single array of the exact size
+ * and no intermediate strings are created.
+ */
+class FormBodyEncoder {
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes();
+
+    private final List<String> names = new ArrayList<>();
+    private final List<String> values = new ArrayList<>();
+
+
+    /**
+     * Adds a parameter, null values are ignored. Names are written as is, they must not need encoding.
+     */
+    FormBodyEncoder add(String name, String value) {
+        if (value != null) {
+            names.add(name);
+            values.add(value);
+        }
+        return this;
+    }
+
+
+    byte[] toByteArray() {
+        int length = 0;
+        for (int i = 0; i < names.size(); i++)
+            length += (i == 0 ? 0 : 1) + names.get(i).length() + 1 + encodedLength(values.get(i));
+
+        byte[] body = new byte[length];
+        int position = 0;
+
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0)
+                body[position++] = '&';
+
+            String name = names.get(i);
+            for (int c = 0; c < name.length(); c++)
+                body[position++] = (byte) name.charAt(c);
+
+            body[position++] = '=';
+            position = encode(values.get(i), body, position);
+        }
+
+        return body;
+    }
+
+
+    static int encodedLength(CharSequence value) {
+        int length = 0;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c < 0x80) {
+                length += isUnreserved(c) || c == ' ' ? 1 : 3;
+            } else if (c < 0x800) {
+                length += 6;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 12;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 3;
+            } else {
+                length += 9;
+            }
+        }
+
+        return length;
+    }
+
+
+    /**
+     * @return position after the encoded value
+     */
+    static int encode(CharSequence value, byte[] out, int position) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c < 0x80) {
+                if (isUnreserved(c)) {
+                    out[position++] = (byte) c;
+                } else if (c == ' ') {
+                    out[position++] = '+';
+                } else {
+                    position = percent(c, out, position);
+                }
+            } else if (c < 0x800) {
+                position = percent(0xC0 | (c >> 6), out, position);
+                position = percent(0x80 | (c & 0x3F), out, position);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                position = percent(0xF0 | (codePoint >> 18), out, position);
+                position = percent(0x80 | ((codePoint >> 12) & 0x3F), out, position);
+                position = percent(0x80 | ((codePoint >> 6) & 0x3F), out, position);
+                position = percent(0x80 | (codePoint & 0x3F), out, position);
+            } else if (Character.isSurrogate(c)) {
+                position = percent('?', out, position);
+            } else {
+                position = percent(0xE0 | (c >> 12), out, position);
+                position = percent(0x80 | ((c >> 6) & 0x3F), out, position);
+                position = percent(0x80 | (c & 0x3F), out, position);
+            }
+        }
+
+        return position;
+    }
+
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '.' || c == '-' || c == '*' || c == '_';
+    }
+
+
+    private static int percent(int b, byte[] out, int position) {
+        out[position++] = '%';
+        out[position++] = HEX[(b >> 4) & 0xF];
+        out[position++] = HEX[b & 0xF];
+        return position;
+    }
+}
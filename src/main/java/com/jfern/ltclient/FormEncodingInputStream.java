@@ -0,0 +1,130 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * Streams a x-www-form-urlencoded body where one parameter value is read from a {@link Reader}.
+ * The body is the prefix bytes (already encoded, e.g. "language=en-US&amp;text="), the encoded reader content and
+ * the suffix bytes. Only one chunk of chars is held in memory at a time.
+ * Closing the stream doesn't close the reader, it belongs to the caller.
+ */
+class FormEncodingInputStream extends InputStream {
+
+    static final int CHUNK_CHARS = 8192;
+
+    /**
+     * worst case of encoded bytes per char: 3 byte UTF-8 sequence, each byte as %XX
+     */
+    private static final int MAX_BYTES_PER_CHAR = 9;
+
+    private final Reader reader;
+    private final byte[] suffix;
+
+    private final char[] chars = new char[CHUNK_CHARS];
+    private final byte[] encoded = new byte[CHUNK_CHARS * MAX_BYTES_PER_CHAR];
+    private int carriedChars;
+
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean readerDone;
+    private boolean suffixDone;
+
+
+    FormEncodingInputStream(byte[] prefix, Reader reader, byte[] suffix) {
+        this.reader = reader;
+        this.suffix = suffix;
+        this.buffer = prefix;
+        this.limit = prefix.length;
+    }
+
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+        return read < 0 ? -1 : single[0] & 0xFF;
+    }
+
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+
+        while (position == limit) {
+            if (!fill())
+                return -1;
+        }
+
+        int count = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+
+    private boolean fill() throws IOException {
+        if (!readerDone) {
+            int read = reader.read(chars, carriedChars, chars.length - carriedChars);
+
+            int available = carriedChars + Math.max(read, 0);
+            if (read < 0)
+                readerDone = true;
+
+            //a high surrogate at the end of the chunk is kept until its pair is read
+            int usable = available;
+            if (!readerDone && usable > 0 && Character.isHighSurrogate(chars[usable - 1]))
+                usable--;
+
+            buffer = encoded;
+            position = 0;
+            limit = FormBodyEncoder.encode(CharBuffer.wrap(chars, 0, usable), encoded, 0);
+
+            carriedChars = available - usable;
+            if (carriedChars > 0)
+                chars[0] = chars[usable];
+
+            return true;
+        }
+
+        if (!suffixDone) {
+            suffixDone = true;
+            buffer = suffix;
+            position = 0;
+            limit = suffix.length;
+            return true;
+        }
+
+        return false;
+    }
+}
@@ -26,47 +26,123 @@ package com.jfern.ltclient;
  * #L%
  */
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.function.Supplier;
 
 public class JsonBodyHandler<T> implements HttpResponse.BodyHandler<Supplier<T>> {
 
-    private static final ObjectMapper om = new ObjectMapper();
+    //configured once, before any use: the static parsing methods don't depend on an instance being created first
+    private static final ObjectMapper om = LTRuleRegistry.mapper(LTRuleRegistry.getDefault());
     private final Class<T> targetClass;
+    private final ObjectMapper mapper;
 
     public JsonBodyHandler(Class<T> targetClass) {
+        this(targetClass, LTRuleRegistry.getDefault());
+    }
+
+    /**
+     * @param ruleRegistry registry sharing the rules of the parsed responses, or null not to share them
+     */
+    public JsonBodyHandler(Class<T> targetClass, LTRuleRegistry ruleRegistry) {
         this.targetClass = targetClass;
-        om.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.mapper = LTRuleRegistry.mapper(ruleRegistry);
     }
 
     @Override
     public HttpResponse.BodySubscriber<Supplier<T>> apply(HttpResponse.ResponseInfo responseInfo) {
-        return asJSON(this.targetClass);
+        if (responseInfo.statusCode() != HttpURLConnection.HTTP_OK)
+            return asError(responseInfo);
+
+        return asJSON(this.targetClass, mapper);
+    }
+
+
+    /**
+     * Error bodies are plain text messages, they are read completely (so the connection can be reused)
+     * and the returned supplier throws a {@link LTServerException} with the server message.
+     */
+    public static <W> HttpResponse.BodySubscriber<Supplier<W>> asError(int statusCode) {
+        return asError(statusCode, null);
+    }
+
+
+    /**
+     * Same as {@link #asError(int)}, the exception also gets the Retry-After header of the response.
+     */
+    public static <W> HttpResponse.BodySubscriber<Supplier<W>> asError(HttpResponse.ResponseInfo responseInfo) {
+        return asError(responseInfo.statusCode(), LTRetryPolicy.retryAfter(responseInfo.headers()));
+    }
+
+
+    private static <W> HttpResponse.BodySubscriber<Supplier<W>> asError(int statusCode, Duration retryAfter) {
+        return HttpResponse.BodySubscribers.mapping(
+                HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8),
+                message -> () -> {
+                    throw new UncheckedIOException(new LTServerException(statusCode, message, retryAfter));
+                });
     }
 
 
     public static <W> HttpResponse.BodySubscriber<Supplier<W>> asJSON(Class<W> targetType) {
+        return asJSON(targetType, om);
+    }
+
+
+    private static <W> HttpResponse.BodySubscriber<Supplier<W>> asJSON(Class<W> targetType, ObjectMapper mapper) {
         HttpResponse.BodySubscriber<InputStream> upstream = HttpResponse.BodySubscribers.ofInputStream();
 
         return HttpResponse.BodySubscribers.mapping(
                 upstream,
-                inputStream -> toSupplierOfType(inputStream, targetType));
+                inputStream -> new ParsingSupplier<>(inputStream, targetType, mapper));
     }
 
+    /**
+     * The returned supplier parses the stream on the first call and returns the same object on the following calls,
+     * so one response can be shared by several consumers.
+     */
     public static <W> Supplier<W> toSupplierOfType(InputStream inputStream, Class<W> targetType) {
-        return () -> {
-            try (InputStream stream = inputStream) {
+        return new ParsingSupplier<>(inputStream, targetType, om);
+    }
+
 
-                return om.readValue(stream, targetType);
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
+    private static class ParsingSupplier<W> implements Supplier<W> {
+
+        private final Class<W> targetType;
+        private final ObjectMapper mapper;
+        private InputStream inputStream;
+        private W value;
+        private UncheckedIOException error;
+
+        ParsingSupplier(InputStream inputStream, Class<W> targetType, ObjectMapper mapper) {
+            this.inputStream = inputStream;
+            this.targetType = targetType;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public synchronized W get() {
+            if (inputStream != null) {
+                try (InputStream stream = inputStream) {
+
+                    value = mapper.readValue(stream, targetType);
+                } catch (IOException e) {
+                    error = new UncheckedIOException(e);
+                }
+                inputStream = null;
             }
-        };
+
+            if (error != null)
+                throw error;
+
+            return value;
+        }
     }
 }
@@ -0,0 +1,63 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTResponse;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Result of one text of a batch check. Either {@link #getResponse()} or {@link #getError()} is set.
+ * A response given by the {@link LTClient#setFallback(LTFallback) fallback} after a failed check is a success
+ * with {@link #isFallback()} set and the failure in {@link #getFallbackCause()}.
+ */
+@Builder
+@Getter
+public class LTBatchResult {
+
+    /**
+     * position of the text in the batch input
+     */
+    private final int index;
+    private final LTResponse response;
+    private final Throwable error;
+
+    /**
+     * the response comes from the fallback, not from the server
+     */
+    private final boolean fallback;
+
+    /**
+     * why the check failed, when the response comes from the fallback
+     */
+    private final Throwable fallbackCause;
+
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
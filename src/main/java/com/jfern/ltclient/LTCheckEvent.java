@@ -0,0 +1,87 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Measures of one HTTP exchange with the server (each retry or hedged attempt is a separate exchange),
+ * or of a request that failed before being sent. Durations are in nanoseconds, -1 when unknown.
+ * <p>
+ * Client overhead is encode + queueWait + parse, server and network time is timeToFirstByte + transfer.
+ */
+@Getter
+@Builder
+public class LTCheckEvent {
+
+    private final String language;
+    private final LTPriority priority;
+    /**
+     * base URL of the server, null if the request was not sent
+     */
+    private final String server;
+    /**
+     * HTTP status code, 0 if there is no response
+     */
+    private final int statusCode;
+    /**
+     * why the request failed, null if a response was parsed (or an error response received)
+     */
+    private final Throwable error;
+
+    /**
+     * time to url encode the request body
+     */
+    private final long encodeNanos;
+    /**
+     * time from the attempt start to sending, waiting for the rate limiter and scheduler
+     */
+    private final long queueWaitNanos;
+    /**
+     * time from sending to receiving the response headers
+     */
+    private final long timeToFirstByteNanos;
+    /**
+     * time from the response headers to the last byte of the body
+     */
+    private final long transferNanos;
+    /**
+     * time spent parsing after the last byte arrived, the parse overlapping the transfer is counted as transfer
+     */
+    private final long parseNanos;
+
+    /**
+     * size of the request body, -1 for streamed bodies
+     */
+    private final long requestBytes;
+    private final long responseBytes;
+    /**
+     * matches in the parsed response, -1 if it was not parsed. Streamed responses ({@link LTClient#checkStreaming}) don't keep the matches, they count 0
+     */
+    private final int matchCount;
+}
@@ -0,0 +1,69 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * What the client knows about a request on its way to the server, besides the body.
+ */
+@Getter
+@Builder(toBuilder = true)
+class LTCheckRequest {
+
+    private final String language;
+    private final String apiKey;
+    /**
+     * the text or data, null when it is streamed
+     */
+    private final String text;
+    /**
+     * characters of the text or data, 0 when it is streamed
+     */
+    private final long characters;
+    /**
+     * the url encoded body, null when it is streamed
+     */
+    private final byte[] formData;
+    /**
+     * time taken to encode the form data, -1 when it is streamed
+     */
+    @Builder.Default
+    private final long encodeNanos = -1;
+    @Builder.Default
+    private final LTPriority priority = LTPriority.INTERACTIVE;
+    /**
+     * {@link System#nanoTime()} after which the request is not sent, or null
+     */
+    private final Long deadline;
+
+
+    boolean isExpired() {
+        return deadline != null && System.nanoTime() - deadline >= 0;
+    }
+}
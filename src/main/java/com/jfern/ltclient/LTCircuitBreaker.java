@@ -0,0 +1,241 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops sending requests to the server while it is failing or too slow, so callers fail fast instead of waiting
+ * for each request to time out. See {@link LTClient#setCircuitBreaker(LTCircuitBreaker)}.
+ * <ul>
+ * <li>CLOSED: requests go to the server, the outcomes of the last windowSize requests are recorded. When at least
+ * minimumCalls are recorded and the failure rate or the slow call rate reaches its threshold, it opens.</li>
+ * <li>OPEN: requests fail right away with a {@link LTCircuitOpenException}. After openDuration it becomes half open.</li>
+ * <li>HALF_OPEN: halfOpenCalls probe requests are let through, the others fail fast. When all the probes complete it closes
+ * if their rates are under the thresholds, otherwise it opens again.</li>
+ * </ul>
+ * Failures are connection errors, timeouts, 429 and 5xx responses. Slow calls are those whose response headers take
+ * more than slowCallDuration.
+ */
+public class LTCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    @Getter
+    private final double failureRateThreshold;
+    @Getter
+    private final Duration slowCallDuration;
+    @Getter
+    private final double slowCallRateThreshold;
+    @Getter
+    private final int minimumCalls;
+    @Getter
+    private final int windowSize;
+    @Getter
+    private final Duration openDuration;
+    @Getter
+    private final int halfOpenCalls;
+
+    private State state = State.CLOSED;
+
+    private LongSupplier clock = System::nanoTime;
+
+    //ring buffer of the outcomes, with running counts
+    private final byte[] outcomes;
+    private int recorded;
+    private int next;
+    private int failures;
+    private int slowCalls;
+
+    private long openedAt;
+    private int probesStarted;
+
+
+    /**
+     * @param failureRateThreshold  failure rate (over 0, up to 1) that opens the circuit. Default 0.5
+     * @param slowCallDuration      latency over which a call is slow, null to ignore latency (the default)
+     * @param slowCallRateThreshold slow call rate (over 0, up to 1) that opens the circuit. Default 0.8
+     * @param minimumCalls          calls recorded before the rates are evaluated. Default 20
+     * @param windowSize            number of last calls the rates are computed on. Default 100
+     * @param openDuration          time the circuit stays open before probing the server. Default 30 s
+     * @param halfOpenCalls         probe calls in the half open state, at most windowSize. Default 5
+     */
+    @Builder
+    private LTCircuitBreaker(Double failureRateThreshold, Duration slowCallDuration, Double slowCallRateThreshold, Integer minimumCalls, Integer windowSize, Duration openDuration, Integer halfOpenCalls) {
+        this.failureRateThreshold = failureRateThreshold != null ? failureRateThreshold : 0.5;
+        this.slowCallDuration = slowCallDuration;
+        this.slowCallRateThreshold = slowCallRateThreshold != null ? slowCallRateThreshold : 0.8;
+        this.windowSize = windowSize != null ? windowSize : 100;
+        this.minimumCalls = Math.min(this.windowSize, minimumCalls != null ? minimumCalls : 20);
+        this.openDuration = openDuration != null ? openDuration : Duration.ofSeconds(30);
+        this.halfOpenCalls = Math.min(this.windowSize, halfOpenCalls != null ? halfOpenCalls : 5);
+
+        if (this.windowSize < 1 || this.minimumCalls < 1 || this.halfOpenCalls < 1)
+            throw new IllegalArgumentException("windowSize, minimumCalls and halfOpenCalls must be at least 1");
+        //written so that NaN fails too
+        if (!(this.failureRateThreshold > 0 && this.failureRateThreshold <= 1))
+            throw new IllegalArgumentException("failureRateThreshold must be greater than 0 and at most 1: " + this.failureRateThreshold);
+        if (!(this.slowCallRateThreshold > 0 && this.slowCallRateThreshold <= 1))
+            throw new IllegalArgumentException("slowCallRateThreshold must be greater than 0 and at most 1: " + this.slowCallRateThreshold);
+        if (this.slowCallDuration != null && (this.slowCallDuration.isNegative() || this.slowCallDuration.isZero()))
+            throw new IllegalArgumentException("slowCallDuration must be positive: " + this.slowCallDuration);
+        if (this.openDuration.isNegative() || this.openDuration.isZero())
+            throw new IllegalArgumentException("openDuration must be positive: " + this.openDuration);
+
+        this.outcomes = new byte[this.windowSize];
+    }
+
+
+    void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+
+    public synchronized State getState() {
+        updateState();
+        return state;
+    }
+
+
+    /**
+     * Fails if a request wouldn't be let through now, without taking a half open probe slot.
+     * Used to fail fast before waiting for the rate limiter.
+     *
+     * @throws LTCircuitOpenException if the circuit is open, or half open with all the probes in flight
+     */
+    synchronized void checkPermitted() throws LTCircuitOpenException {
+        updateState();
+
+        if (state == State.OPEN || state == State.HALF_OPEN && probesStarted >= halfOpenCalls)
+            throw openException();
+    }
+
+
+    /**
+     * Lets a request through. Each permitted request must end with {@link #onSuccess(long)}, {@link #onFailure(long)} or {@link #onIgnore()}.
+     *
+     * @throws LTCircuitOpenException if the circuit is open, or half open with all the probes in flight
+     */
+    synchronized void acquire() throws LTCircuitOpenException {
+        checkPermitted();
+
+        if (state == State.HALF_OPEN)
+            probesStarted++;
+    }
+
+
+    private LTCircuitOpenException openException() {
+        long remaining = state == State.OPEN ? openDuration.toNanos() - (clock.getAsLong() - openedAt) : 0;
+        return new LTCircuitOpenException(Duration.ofNanos(Math.max(0, remaining)));
+    }
+
+
+    synchronized void onSuccess(long latencyNanos) {
+        record(slowCallDuration != null && latencyNanos > slowCallDuration.toNanos() ? SLOW : 0);
+    }
+
+
+    synchronized void onFailure(long latencyNanos) {
+        record((byte) (FAILED | (slowCallDuration != null && latencyNanos > slowCallDuration.toNanos() ? SLOW : 0)));
+    }
+
+
+    /**
+     * Ends a permitted request that didn't say anything about the server (e.g. cancelled).
+     */
+    synchronized void onIgnore() {
+        if (state == State.HALF_OPEN && probesStarted > recorded)
+            probesStarted--;
+    }
+
+
+    /**
+     * Closes the circuit and forgets the recorded calls.
+     */
+    public synchronized void reset() {
+        transition(State.CLOSED);
+    }
+
+
+    private void record(byte outcome) {
+        //outcomes of calls started before the circuit opened say nothing new
+        if (state == State.OPEN)
+            return;
+
+        if (recorded == outcomes.length) {
+            byte oldest = outcomes[next];
+            failures -= oldest & FAILED;
+            slowCalls -= (oldest & SLOW) >> 1;
+        } else {
+            recorded++;
+        }
+
+        outcomes[next] = outcome;
+        next = (next + 1) % outcomes.length;
+        failures += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+
+        if (state == State.CLOSED && recorded >= minimumCalls && exceedsThresholds())
+            transition(State.OPEN);
+        else if (state == State.HALF_OPEN && recorded >= halfOpenCalls)
+            transition(exceedsThresholds() ? State.OPEN : State.CLOSED);
+    }
+
+
+    private boolean exceedsThresholds() {
+        return failures >= failureRateThreshold * recorded
+                || slowCallDuration != null && slowCalls >= slowCallRateThreshold * recorded;
+    }
+
+
+    private void updateState() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openDuration.toNanos())
+            transition(State.HALF_OPEN);
+    }
+
+
+    private void transition(State newState) {
+        state = newState;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        slowCalls = 0;
+        probesStarted = 0;
+
+        if (newState == State.OPEN)
+            openedAt = clock.getAsLong();
+    }
+}
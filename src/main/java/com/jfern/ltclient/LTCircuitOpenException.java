@@ -0,0 +1,50 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import lombok.Getter;
+
+import java.net.ConnectException;
+import java.time.Duration;
+
+/**
+ * Thrown by the client, without calling the server, while the {@link LTCircuitBreaker} is open.
+ * Extends {@link ConnectException} like {@link LTServerException}, so it is handled like an unreachable server.
+ */
+@Getter
+public class LTCircuitOpenException extends ConnectException {
+
+    /**
+     * time until the circuit lets probe requests through
+     */
+    private final Duration retryAfter;
+
+    public LTCircuitOpenException(Duration retryAfter) {
+        super("circuit breaker open, retry after " + retryAfter.toMillis() + " ms");
+        this.retryAfter = retryAfter;
+    }
+}
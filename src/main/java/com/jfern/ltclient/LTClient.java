@@ -26,25 +26,93 @@ package com.jfern.ltclient;
  * #L%
  */
 
+import com.jfern.ltclient.POJO.LTLanguage;
+import com.jfern.ltclient.POJO.LTMatch;
 import com.jfern.ltclient.POJO.LTResponse;
+import lombok.Builder;
 import lombok.NonNull;
+import lombok.Singular;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.net.*;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Slf4j
-public class LTClient {
+public class LTClient implements AutoCloseable {
 
 
-    private final String SERVER_URL;
+    public static final int DEFAULT_BATCH_CONCURRENCY = 16;
+    public static final int DEFAULT_CHUNK_SIZE = 10_000;
+
+    /**
+     * runs the blocking read and parse of response bodies for the async methods, off the HttpClient threads
+     */
+    private static final Executor PARSE_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "LTClient-parser");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final LTLoadBalancer loadBalancer;
+
+    private volatile LTResponseCache responseCache;
+    private volatile LTResultStore resultStore;
+    private final VersionMajority serverVersion = new VersionMajority(VersionMajority.DEFAULT_WINDOW);
+
+    private volatile Executor parseExecutor = PARSE_EXECUTOR;
+    private volatile LTRateLimiter rateLimiter;
+    private volatile LTRetryPolicy retryPolicy;
+    private volatile LTCircuitBreaker circuitBreaker;
+    private volatile LTFallback fallback;
+    private volatile LTScheduler scheduler;
+    private volatile LTMetricsListener metricsListener;
+    private volatile LTLanguageCatalog languageCatalog;
+    private volatile LTRuleRegistry ruleRegistry = LTRuleRegistry.getDefault();
+
+    private volatile boolean requestCoalescing = true;
+    private final Map<LTPriority, Map<ByteBuffer, SharedRequest>> inFlight = new EnumMap<>(LTPriority.class);
+    private final AtomicLong coalescedRequests = new AtomicLong();
+
+    {
+        for (LTPriority priority : LTPriority.values())
+            inFlight.put(priority, new ConcurrentHashMap<>());
+    }
 
 
     /**
@@ -67,8 +135,104 @@ public class LTClient {
      * @param password  if the server requires authentication (if username is not specified is ignored)
      */
     public LTClient(String serverURL, String username, String password) {
+        this(List.of(serverURL), username, password);
+    }
+
+
+    /**
+     * Creates a client that spreads the requests over several servers.
+     * Each request goes to the healthy server with the least outstanding requests weighted by latency.
+     * Servers that fail repeatedly are ejected and probed periodically (GET /v2/languages) until they recover,
+     * then they get a gradually increasing share of the traffic. See {@link LTNode}.
+     * <p>
+     * The health probes run on a background thread, call {@link #close()} when the client is no longer used.
+     *
+     * @param serverURLs the base URL of each server. examples: "http://10.30.10.30:8010" or "https://api.yoursite.com/ltool"
+     * @param username   if the servers require authentication (if password is not specified is ignored)
+     * @param password   if the servers require authentication (if username is not specified is ignored)
+     */
+    public LTClient(@NonNull List<String> serverURLs, String username, String password) {
+        this(builder().serverURLs(serverURLs).username(username).password(password));
+    }
+
+
+    /**
+     * Creates a client with the options of the builder, the ones left unset keep their defaults.
+     */
+    private LTClient(LTClientBuilder options) {
+        this(options.serverURLs, options.username, options.password, options.httpClient, options.httpVersion, options.executor,
+                options.connectTimeout, options.requestTimeout, options.responseCache, options.resultStore, options.parseExecutor,
+                options.requestCoalescing, options.languageReplicas, options.rateLimiter, options.retryPolicy, options.circuitBreaker,
+                options.fallback, options.scheduler, options.metricsListener, options.languageCatalog, options.ruleRegistry);
+    }
+
 
-        SERVER_URL = serverURL;
+    /**
+     * Creates a client with all the options, use {@link #builder()}. Options left unset keep their defaults.
+     * Example:
+     * <pre>{@code
+     * LTClient client = LTClient.builder()
+     *         .serverURL("http://10.30.10.30:8010")
+     *         .httpVersion(HttpClient.Version.HTTP_2)
+     *         .connectTimeout(Duration.ofSeconds(2))
+     *         .requestTimeout(Duration.ofSeconds(30))
+     *         .build();
+     * }</pre>
+     *
+     * @param serverURLs        the base URL of each server, see {@link #LTClient(List, String, String)}
+     * @param username          if the servers require authentication (if password is not specified is ignored)
+     * @param password          if the servers require authentication (if username is not specified is ignored)
+     * @param httpClient        an existing HttpClient to use, so many LTClient instances can share its connections.
+     *                          When set, username, password, httpVersion, executor and connectTimeout are ignored.
+     * @param httpVersion       preferred HTTP version. With HTTP_2 many checks are multiplexed over few connections,
+     *                          it is negotiated with ALPN over TLS or with an upgrade from HTTP/1.1 (h2c) over plain http.
+     * @param executor          executor for the HttpClient tasks (e.g. a virtual thread executor on Java 21)
+     * @param connectTimeout    max time to establish a connection
+     * @param requestTimeout    max time to wait for the response headers of each request
+     * @param responseCache     see {@link #setResponseCache(LTResponseCache)}
+     * @param resultStore       see {@link #setResultStore(LTResultStore)}
+     * @param parseExecutor     see {@link #setParseExecutor(Executor)}
+     * @param requestCoalescing see {@link #setRequestCoalescing(boolean)}
+     * @param languageReplicas  see {@link #setLanguageReplicas(int)}
+     * @param rateLimiter       see {@link #setRateLimiter(LTRateLimiter)}
+     * @param retryPolicy       see {@link #setRetryPolicy(LTRetryPolicy)}
+     * @param circuitBreaker    see {@link #setCircuitBreaker(LTCircuitBreaker)}
+     * @param fallback          see {@link #setFallback(LTFallback)}
+     * @param scheduler         see {@link #setScheduler(LTScheduler)}
+     * @param metricsListener   see {@link #setMetricsListener(LTMetricsListener)}
+     * @param languageCatalog   see {@link #setLanguageCatalog(LTLanguageCatalog)}
+     * @param ruleRegistry      see {@link #setRuleRegistry(LTRuleRegistry)}, null keeps the default registry
+     */
+    @Builder
+    private LTClient(@Singular("serverURL") List<String> serverURLs, String username, String password, HttpClient httpClient, HttpClient.Version httpVersion, Executor executor, Duration connectTimeout, Duration requestTimeout, LTResponseCache responseCache, LTResultStore resultStore, Executor parseExecutor, Boolean requestCoalescing, Integer languageReplicas, LTRateLimiter rateLimiter, LTRetryPolicy retryPolicy, LTCircuitBreaker circuitBreaker, LTFallback fallback, LTScheduler scheduler, LTMetricsListener metricsListener, LTLanguageCatalog languageCatalog, LTRuleRegistry ruleRegistry) {
+
+        if (serverURLs == null || serverURLs.isEmpty())
+            throw new IllegalArgumentException("at least one server URL is required");
+
+        this.httpClient = httpClient != null ? httpClient : newHttpClient(username, password, httpVersion, executor, connectTimeout);
+        this.requestTimeout = requestTimeout;
+        this.loadBalancer = new LTLoadBalancer(serverURLs, this.httpClient);
+
+        this.responseCache = responseCache;
+        this.resultStore = resultStore;
+        setParseExecutor(parseExecutor);
+        if (requestCoalescing != null)
+            this.requestCoalescing = requestCoalescing;
+        if (languageReplicas != null)
+            setLanguageReplicas(languageReplicas);
+        this.rateLimiter = rateLimiter;
+        this.retryPolicy = retryPolicy;
+        this.circuitBreaker = circuitBreaker;
+        this.fallback = fallback;
+        this.scheduler = scheduler;
+        this.metricsListener = metricsListener;
+        setLanguageCatalog(languageCatalog);
+        if (ruleRegistry != null)
+            this.ruleRegistry = ruleRegistry;
+    }
+
+
+    private static HttpClient newHttpClient(String username, String password, HttpClient.Version httpVersion, Executor executor, Duration connectTimeout) {
 
         HttpClient.Builder builder = HttpClient.newBuilder();
 
@@ -83,8 +247,271 @@ public class LTClient {
             });
         }
 
+        if (httpVersion != null)
+            builder.version(httpVersion);
+
+        if (executor != null)
+            builder.executor(executor);
+
+        if (connectTimeout != null)
+            builder.connectTimeout(connectTimeout);
+
+        return builder.build();
+    }
+
+
+    /**
+     * Sets the cache consulted by {@link #check(String, String) check}, {@link #checkBatch(String, Collection) checkBatch}
+     * and the methods built on them. {@link #checkAsync(String, String) checkAsync} always goes to the server.
+     *
+     * @param responseCache the cache to use, or null to disable caching
+     */
+    public void setResponseCache(LTResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+
+    public LTResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+
+    /**
+     * Sets a persistent store consulted after the {@link #setResponseCache(LTResponseCache) cache} and before calling the server.
+     * When most of the recent responses come from a different server version than the stored ones, the stored results are invalidated.
+     *
+     * @param resultStore the store to use, or null to disable it. The client doesn't close it.
+     */
+    public void setResultStore(LTResultStore resultStore) {
+        this.resultStore = resultStore;
+    }
+
+
+    public LTResultStore getResultStore() {
+        return resultStore;
+    }
+
+
+    /**
+     * Sets a budget of requests and characters per minute for each API key, checked before each request goes to the server
+     * (cached and coalesced requests don't count). Requests over the budget are delayed or fail with a
+     * {@link LTQuotaExceededException} depending on the {@link LTRateLimiter.Mode mode}, requests with more characters than
+     * the budget of a minute fail with a {@link LTRequestTooLargeException}.
+     * Streamed requests ({@link #check(String, Reader)} and similar) only count as a request, their length is not known in advance.
+     *
+     * @param rateLimiter the limiter to use, or null to send the requests without limit
+     */
+    public void setRateLimiter(LTRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+
+    public LTRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+
+    /**
+     * Sets the retries and hedged requests applied to all check methods, see {@link LTRetryPolicy}.
+     * Retries happen under the returned futures, so they are safe with {@link #checkAsync(String, String) checkAsync}:
+     * the future completes once, with the first usable response, and cancelling it cancels the attempts in flight.
+     * Each attempt counts for the {@link #setRateLimiter(LTRateLimiter) rate limiter}.
+     * Texts streamed from a Reader, Path or InputStream are sent only once.
+     *
+     * @param retryPolicy the policy to use, or null to send each request once (the default)
+     */
+    public void setRetryPolicy(LTRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+
+    public LTRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+
+    /**
+     * Sets a circuit breaker around the requests to the server, see {@link LTCircuitBreaker}.
+     * While it is open the check methods fail right away with a {@link LTCircuitOpenException}
+     * (or get the {@link #setFallback(LTFallback) fallback} response).
+     *
+     * @param circuitBreaker the circuit breaker to use, or null to always call the server (the default)
+     */
+    public void setCircuitBreaker(LTCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+
+    public LTCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+
+    /**
+     * Sets the response given instead of an IOException (server error, connection error, open circuit...) by
+     * {@link #check(String, String) check}, {@link #checkAsyncResponse(String, String) checkAsyncResponse} and
+     * {@link #checkBatch(String, Collection) checkBatch}. Fallback responses are not cached.
+     * {@link #checkAsync(String, String) checkAsync} and the streamed checks don't use it.
+     * Example: {@code client.setFallback(LTFallback.empty())}
+     *
+     * @param fallback the fallback to use, or null to give the errors to the caller (the default)
+     */
+    public void setFallback(LTFallback fallback) {
+        this.fallback = fallback;
+    }
+
+
+    public LTFallback getFallback() {
+        return fallback;
+    }
+
+
+    /**
+     * Sets the scheduler that limits the requests in flight and sends the waiting ones by priority, see {@link LTScheduler}.
+     * Requests get their priority from {@link #check(String, String, LTPriority, Duration) check},
+     * {@link #checkAsync(String, String, LTPriority, Duration) checkAsync} and
+     * {@link #checkBatch(String, Stream, int, LTPriority) checkBatch}, the other methods use {@link LTPriority#INTERACTIVE}.
+     *
+     * @param scheduler the scheduler to use, or null to send the requests right away (the default)
+     */
+    public void setScheduler(LTScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
 
-        httpClient = builder.build();
+    public LTScheduler getScheduler() {
+        return scheduler;
+    }
+
+
+    /**
+     * Sets the listener that receives the measures of each request sent to the server: encode time, queue wait, time to first byte,
+     * transfer, parse time, sizes, status code, match count and language. See {@link LTCheckEvent}.
+     * Requests answered by the cache, the result store or an identical request in flight are not measured.
+     *
+     * @param metricsListener the listener, e.g. {@link LTHistogramMetrics} or {@link LTJfrMetrics}, or null to measure nothing (the default)
+     */
+    public void setMetricsListener(LTMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+
+    public LTMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+
+    /**
+     * Sets the catalog of the server languages used to normalize and validate the language of each request,
+     * see {@link LTLanguageCatalog}. The catalog is loaded from the servers of this client, the previous one is closed.
+     *
+     * @param languageCatalog the catalog, or null for the default one: it only keeps the list for {@link #getLanguages()},
+     *                        requests are sent with the language given
+     */
+    public void setLanguageCatalog(LTLanguageCatalog languageCatalog) {
+        LTLanguageCatalog catalog = languageCatalog != null ? languageCatalog : LTLanguageCatalog.builder().validate(false).build();
+        catalog.bind(this::fetchLanguages);
+
+        LTLanguageCatalog previous = this.languageCatalog;
+        this.languageCatalog = catalog;
+        if (previous != null && previous != catalog)
+            previous.close();
+    }
+
+
+    public LTLanguageCatalog getLanguageCatalog() {
+        return languageCatalog;
+    }
+
+
+    /**
+     * Sets the registry that shares the rules and categories of the parsed responses, see {@link LTRuleRegistry}.
+     * By default all clients share {@link LTRuleRegistry#getDefault()}.
+     *
+     * @param ruleRegistry the registry, or null to keep the rules as parsed
+     */
+    public void setRuleRegistry(LTRuleRegistry ruleRegistry) {
+        this.ruleRegistry = ruleRegistry;
+    }
+
+
+    public LTRuleRegistry getRuleRegistry() {
+        return ruleRegistry;
+    }
+
+
+    /**
+     * @return the languages supported by the server, from the {@link #setLanguageCatalog(LTLanguageCatalog) catalog}
+     * (requested on the first call, then refreshed in the background)
+     */
+    public List<LTLanguage> getLanguages() throws IOException, InterruptedException {
+        try {
+            return getLanguagesAsync().get();
+        } catch (ExecutionException e) {
+            throw toIOException(e.getCause());
+        }
+    }
+
+
+    /**
+     * Same as {@link #getLanguages()}, without blocking.
+     */
+    public CompletableFuture<List<LTLanguage>> getLanguagesAsync() {
+        return languageCatalog.load();
+    }
+
+
+    /**
+     * When enabled (the default) a request identical to one already in flight (same text and parameters) doesn't go
+     * to the server, it gets the response of the request in flight. Applies to all check methods.
+     * Cancelling the future returned to one caller doesn't affect the others, the shared request is cancelled
+     * when all its callers cancelled their futures.
+     */
+    public void setRequestCoalescing(boolean requestCoalescing) {
+        this.requestCoalescing = requestCoalescing;
+    }
+
+
+    public boolean isRequestCoalescing() {
+        return requestCoalescing;
+    }
+
+
+    /**
+     * @return number of requests that were not sent because an identical one was in flight
+     */
+    public long getCoalescedRequests() {
+        return coalescedRequests.get();
+    }
+
+
+    /**
+     * @return the servers used by this client, with their routing statistics and health
+     */
+    public List<LTNode> getNodes() {
+        return loadBalancer.getNodes();
+    }
+
+
+    /**
+     * Enables language routing: each language is always sent to the same subset of servers (chosen by rendezvous hashing),
+     * so each server only keeps the models of some languages loaded. Requests with language "auto" can go to any server.
+     * If a server of the subset is ejected, the next server in the ranking of that language is used.
+     *
+     * @param languageReplicas number of servers that serve each language, 0 (the default) to route all languages to all servers
+     */
+    public void setLanguageReplicas(int languageReplicas) {
+        loadBalancer.setLanguageReplicas(languageReplicas);
+    }
+
+
+    /**
+     * Stops the background health probes (only used with more than one server) and language list refresh.
+     */
+    @Override
+    public void close() {
+        loadBalancer.close();
+        languageCatalog.close();
     }
 
 
@@ -125,27 +552,38 @@ public class LTClient {
 
 
         //convert params to urlencoded string
-        String formData = getFormData(language, text, data, username, apiKey, dicts, motherTongue, preferedVariants, enabledRules, disabledRules, enabledCategories, disabledCategries, enabledOnly, level);
+        return check(newRequest(language, text, data, username, apiKey, dicts, motherTongue, preferedVariants, enabledRules, disabledRules, enabledCategories, disabledCategries, enabledOnly, level));
 
+    }
 
-        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(SERVER_URL + "/v2/check"))
-                .header("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8")
-                .header("Accept", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(formData))
-                .build();
 
-        var response = httpClient.send(request, new JsonBodyHandler<>(LTResponse.class));
+    private LTResponse check(LTCheckRequest request) throws IOException, InterruptedException {
 
-        if (response.statusCode() == HttpURLConnection.HTTP_OK) {
-            return response.body().get();
+        String cacheKey = cacheKey(request.getFormData());
+        LTResponse cached = lookup(cacheKey);
+        if (cached != null)
+            return cached;
 
+        LTResponse ltResponse;
+        try {
+            HttpResponse<Supplier<LTResponse>> response;
+            try {
+                response = send(request).get();
+            } catch (ExecutionException e) {
+                throw toIOException(e.getCause());
+            }
 
-        } else {
-            log.error("error:" + response.statusCode());
-            throw new ConnectException("error code: "+response.statusCode());
+            if (response.statusCode() != HttpURLConnection.HTTP_OK)
+                log.error("error:" + response.statusCode());
 
+            ltResponse = readBody(response);
+        } catch (IOException e) {
+            return fallback(request, e);
         }
 
+        remember(cacheKey, ltResponse);
+
+        return ltResponse;
     }
 
 
@@ -184,18 +622,86 @@ public class LTClient {
 
 
         //convert params to urlencoded string
-        String formData = getFormData(language, text, data, username, apiKey, dicts, motherTongue, preferedVariants, enabledRules, disabledRules, enabledCategories, disabledCategries, enabledOnly, level);
+        LTCheckRequest request;
+        try {
+            request = newRequest(language, text, data, username, apiKey, dicts, motherTongue, preferedVariants, enabledRules, disabledRules, enabledCategories, disabledCategries, enabledOnly, level);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
 
 
-        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(SERVER_URL + "/v2/check"))
-                .header("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8")
-                .header("Accept", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(formData))
-                .build();
+        return send(request);
 
+    }
 
-        return httpClient.sendAsync(request, new JsonBodyHandler<>(LTResponse.class));
 
+    /**
+     * Does the same as {@link #check(String, String, String, String, String, String, String, String, String, String, String, String, Boolean, String) check},
+     * but returns a future of the parsed response.
+     * The response body is read and parsed on the {@link #setParseExecutor(Executor) parse executor} while it arrives,
+     * never on the HttpClient threads or on the thread that completes the future.
+     * Uses the cache, result store and request coalescing like check.
+     * <p>
+     * Failures complete the future exceptionally with the original exception, e.g. a {@link LTServerException}
+     * for non 200 responses or an IOException for connection errors. Cancelling the future cancels the request,
+     * unless other callers are waiting for the same coalesced request.
+     *
+     * @return future of the parsed response
+     * @see #check(String, String, String, String, String, String, String, String, String, String, String, String, Boolean, String) check for the parameters
+     */
+    public CompletableFuture<LTResponse> checkAsyncResponse(String language, String text, String data, String username, String apiKey, String dicts, String motherTongue, String preferedVariants, String enabledRules, String disabledRules, String enabledCategories, String disabledCategries, Boolean enabledOnly, String level) {
+
+        LTCheckRequest request;
+        String cacheKey;
+        LTResponse cached;
+
+        try {
+            request = newRequest(language, text, data, username, apiKey, dicts, motherTongue, preferedVariants, enabledRules, disabledRules, enabledCategories, disabledCategries, enabledOnly, level);
+            cacheKey = cacheKey(request.getFormData());
+            cached = lookup(cacheKey);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        if (cached != null)
+            return CompletableFuture.completedFuture(cached);
+
+        CompletableFuture<LTResponse> parsed = parseAsync(send(request));
+        CompletableFuture<LTResponse> result = withFallback(request, parsed.thenApply(response -> {
+            remember(cacheKey, response);
+            return response;
+        }));
+
+        result.whenComplete((response, throwable) -> {
+            if (result.isCancelled())
+                parsed.cancel(true);
+        });
+        return result;
+    }
+
+
+    /**
+     * Async check returning a future of the parsed response. All other parameters will be set to default values or omitted
+     *
+     * @param language A language code like en-US, de-DE, fr, or auto to guess the language automatically.
+     * @param text     The text to be checked.
+     * @return future of the parsed response
+     * @see #checkAsyncResponse(String, String, String, String, String, String, String, String, String, String, String, String, Boolean, String)
+     */
+    public CompletableFuture<LTResponse> checkAsyncResponse(@NonNull String language, @NonNull String text) {
+        return checkAsyncResponse(language, text, null, null, null, null, null, null, null, null, null, null, null, null);
+    }
+
+
+    /**
+     * Sets the executor that reads and parses response bodies for {@link #checkAsyncResponse(String, String) checkAsyncResponse}
+     * and {@link #checkStreamingAsync(String, String, Consumer) checkStreamingAsync}.
+     * Parsing blocks while the body arrives, so the executor should allow blocking tasks (e.g. virtual threads on Java 21).
+     *
+     * @param parseExecutor the executor to use, or null for the default (a cached pool of daemon threads)
+     */
+    public void setParseExecutor(Executor parseExecutor) {
+        this.parseExecutor = parseExecutor == null ? PARSE_EXECUTOR : parseExecutor;
     }
 
 
@@ -254,59 +760,920 @@ public class LTClient {
 
 
     /**
-     * Parameters must sent in x-www-form-urlencoded, this function encodes all non NULL params
+     * Does the same as {@link #check(String, String)} with a priority and a deadline for the {@link #setScheduler(LTScheduler) scheduler}.
+     * If the request is still waiting (for the scheduler, the rate limiter or a retry) when the deadline passes, it is dropped
+     * with a {@link LTDeadlineExceededException}. Once sent, the response headers must arrive before the deadline.
      *
-     * @return String with the encoded params
+     * @param priority the priority class of the request
+     * @param deadline max time from now to send the request and get the response headers, or null for no deadline
      */
-    private String getFormData(String language, String text, String data, String username, String apiKey, String dicts, String motherTongue, String preferedVariants, String enabledRules, String disabledRules, String enabledCategories, String disabledCategries, Boolean enabledOnly, String level) {
-        String formData = URLEncoder.encode("language", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(language, StandardCharsets.UTF_8);
+    public LTResponse check(@NonNull String language, @NonNull String text, @NonNull LTPriority priority, Duration deadline) throws IOException, InterruptedException {
+        return check(prioritize(newRequest(language, text, null, null, null, null, null, null, null, null, null, null, null, null), priority, deadline));
+    }
 
-        if (text != null)
-            formData += "&" + URLEncoder.encode("text", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(text, StandardCharsets.UTF_8);
 
-        if (data != null)
-            formData += "&" + URLEncoder.encode("data", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(data, StandardCharsets.UTF_8);
+    /**
+     * Does the same as {@link #checkAsync(String, String)} with a priority and a deadline,
+     * see {@link #check(String, String, LTPriority, Duration)}.
+     */
+    public CompletableFuture<HttpResponse<Supplier<LTResponse>>> checkAsync(@NonNull String language, @NonNull String text, @NonNull LTPriority priority, Duration deadline) {
+        LTCheckRequest request;
+        try {
+            request = prioritize(newRequest(language, text, null, null, null, null, null, null, null, null, null, null, null, null), priority, deadline);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
 
-        if (username != null)
-            formData += "&" + URLEncoder.encode("username", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(username, StandardCharsets.UTF_8);
+        return send(request);
+    }
 
-        if (apiKey != null)
-            formData += "&" + URLEncoder.encode("apiKey", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(apiKey, StandardCharsets.UTF_8);
 
-        if (dicts != null)
-            formData += "&" + URLEncoder.encode("dicts", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(dicts, StandardCharsets.UTF_8);
+    private static LTCheckRequest prioritize(LTCheckRequest request, LTPriority priority, Duration deadline) {
+        return request.toBuilder()
+                .priority(priority)
+                .deadline(deadline == null ? null : System.nanoTime() + deadline.toNanos())
+                .build();
+    }
 
-        if (motherTongue != null)
-            formData += "&" + URLEncoder.encode("motherTongue", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(motherTongue, StandardCharsets.UTF_8);
 
-        if (apiKey != null)
-            formData += "&" + URLEncoder.encode("apiKey", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(apiKey, StandardCharsets.UTF_8);
+    /**
+     * Checks a text read from a Reader, streaming it to the server while it is read and encoded,
+     * so memory use doesn't depend on the text size. The cache, result store and request coalescing are not used.
+     * <p>
+     * The body can't be sent again, so this doesn't work with servers that ask for authentication (401) before
+     * accepting the request.
+     *
+     * @param language A language code like en-US, de-DE, fr, or auto.
+     * @param text     The text to be checked, read until the end. The caller must close it.
+     * @return Object representing the response from server
+     */
+    public LTResponse check(@NonNull String language, @NonNull Reader text) throws IOException, InterruptedException {
+        return checkStreamedBody(language, "text", text);
+    }
 
-        if (preferedVariants != null)
-            formData += "&" + URLEncoder.encode("preferedVariants", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(preferedVariants, StandardCharsets.UTF_8);
 
-        if (enabledRules != null)
-            formData += "&" + URLEncoder.encode("enabledRules", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(enabledRules, StandardCharsets.UTF_8);
+    /**
+     * Checks the content of a UTF-8 text file, streaming it to the server.
+     *
+     * @see #check(String, Reader)
+     */
+    public LTResponse check(@NonNull String language, @NonNull Path text) throws IOException, InterruptedException {
+        try (Reader reader = Files.newBufferedReader(text, StandardCharsets.UTF_8)) {
+            return checkStreamedBody(language, "text", reader);
+        }
+    }
 
 
-        if (disabledRules != null)
-            formData += "&" + URLEncoder.encode("disabledRules", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(disabledRules, StandardCharsets.UTF_8);
+    /**
+     * Checks UTF-8 text read from an InputStream, streaming it to the server.
+     *
+     * @param text The text to be checked, read until the end. The caller must close it.
+     * @see #check(String, Reader)
+     */
+    public LTResponse check(@NonNull String language, @NonNull InputStream text) throws IOException, InterruptedException {
+        return checkStreamedBody(language, "text", new InputStreamReader(text, StandardCharsets.UTF_8));
+    }
+
 
-        if (enabledCategories != null)
-            formData += "&" + URLEncoder.encode("enabledCategories", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(enabledCategories, StandardCharsets.UTF_8);
+    /**
+     * Checks annotated text (the 'data' parameter, see {@link #check(String, String, String, String, String, String, String, String, String, String, String, String, Boolean, String) check})
+     * read from a Reader, streaming it to the server.
+     *
+     * @param data The JSON annotation document, read until the end. The caller must close it.
+     * @see #check(String, Reader)
+     */
+    public LTResponse checkData(@NonNull String language, @NonNull Reader data) throws IOException, InterruptedException {
+        return checkStreamedBody(language, "data", data);
+    }
 
 
-        if (disabledCategries != null)
-            formData += "&" + URLEncoder.encode("disabledCategries", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(disabledCategries, StandardCharsets.UTF_8);
+    private LTResponse checkStreamedBody(String language, String field, Reader value) throws IOException, InterruptedException {
+        language = languageCatalog.normalize(language);
 
+        byte[] prefix = (new String(getFormData(language, null, null, null, null, null, null, null, null, null, null, null, null, null), StandardCharsets.US_ASCII)
+                + "&" + field + "=").getBytes(StandardCharsets.US_ASCII);
+
+        AtomicBoolean used = new AtomicBoolean();
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofInputStream(() -> {
+            if (used.getAndSet(true))
+                throw new UncheckedIOException(new IOException("streamed body can't be sent again"));
+            return new FormEncodingInputStream(prefix, value, new byte[0]);
+        });
+
+        HttpResponse<Supplier<LTResponse>> response;
+        try {
+            response = sendToServer(LTCheckRequest.builder().language(language).build(), body, new JsonBodyHandler<>(LTResponse.class, ruleRegistry)).get();
+        } catch (ExecutionException e) {
+            throw toIOException(e.getCause());
+        }
+
+        if (response.statusCode() != HttpURLConnection.HTTP_OK)
+            log.error("error:" + response.statusCode());
+
+        return readBody(response);
+    }
+
+
+    /**
+     * Checks the text and gives each match to the consumer as soon as it is parsed, while the response is still
+     * being received. Matches are not kept, so memory use doesn't depend on the number of matches.
+     * The cache, result store and request coalescing are not used.
+     * <p>
+     * To expose the matches as a {@link java.util.concurrent.Flow.Publisher}, pass a
+     * {@link java.util.concurrent.SubmissionPublisher#submit(Object) SubmissionPublisher::submit} as consumer.
+     *
+     * @param language      A language code like en-US, de-DE, fr, or auto.
+     * @param text          The text to be checked.
+     * @param matchConsumer receives the matches in the order sent by the server, on the calling thread
+     * @return the response info (software, language) with an empty match list
+     */
+    public LTResponse checkStreaming(@NonNull String language, @NonNull String text, @NonNull Consumer<LTMatch> matchConsumer) throws IOException, InterruptedException {
+        try {
+            return readBody(sendStreaming(language, text, matchConsumer).get());
+        } catch (ExecutionException e) {
+            throw toIOException(e.getCause());
+        }
+    }
+
+
+    /**
+     * Async version of {@link #checkStreaming(String, String, Consumer)}. The response is parsed (and the consumer called)
+     * on the {@link #setParseExecutor(Executor) parse executor} as the body arrives, never on the HttpClient threads.
+     *
+     * @return future completed after the last match is consumed, or exceptionally if the check fails
+     */
+    public CompletableFuture<LTResponse> checkStreamingAsync(@NonNull String language, @NonNull String text, @NonNull Consumer<LTMatch> matchConsumer) {
+        return parseAsync(sendStreaming(language, text, matchConsumer));
+    }
 
-        if (enabledOnly != null)
-            formData += "&" + URLEncoder.encode("enabledOnly", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(enabledOnly.toString(), StandardCharsets.UTF_8);
+
+    private CompletableFuture<HttpResponse<Supplier<LTResponse>>> sendStreaming(String language, String text, Consumer<LTMatch> matchConsumer) {
+        LTCheckRequest request = newRequest(language, text, null, null, null, null, null, null, null, null, null, null, null, null);
+
+        return sendToServer(request, HttpRequest.BodyPublishers.ofByteArray(request.getFormData()), new MatchStreamBodyHandler(matchConsumer, ruleRegistry));
+    }
+
+
+    /**
+     * Checks a batch of texts with the default maximum concurrency ({@value #DEFAULT_BATCH_CONCURRENCY}).
+     *
+     * @param language A language code like en-US, de-DE, fr, or auto, used for all the texts.
+     * @param texts    The texts to be checked.
+     * @return one result per text, in input order
+     * @see #checkBatch(String, Stream, int)
+     */
+    public List<LTBatchResult> checkBatch(@NonNull String language, @NonNull Collection<String> texts) throws InterruptedException {
+        return checkBatch(language, texts.stream(), DEFAULT_BATCH_CONCURRENCY);
+    }
+
+
+    /**
+     * Checks a batch of texts, keeping at most maxConcurrency requests in flight.
+     * The effective concurrency adapts to the server: it grows while latency is stable and shrinks when latency
+     * rises or the server answers 429/503, so the server stays busy without being overloaded.
+     * The stream is consumed lazily, only when there is a free slot.
+     * <p>
+     * Failures are reported per text in {@link LTBatchResult#getError()}, they don't fail the whole batch.
+     * Responses of the {@link #setFallback(LTFallback) fallback} are flagged with {@link LTBatchResult#isFallback()}.
+     *
+     * @param language       A language code like en-US, de-DE, fr, or auto, used for all the texts.
+     * @param texts          The texts to be checked.
+     * @param maxConcurrency upper bound of requests in flight
+     * @return one result per text, in input order
+     */
+    public List<LTBatchResult> checkBatch(@NonNull String language, @NonNull Stream<String> texts, int maxConcurrency) throws InterruptedException {
+        return checkBatch(language, texts, maxConcurrency, LTPriority.INTERACTIVE);
+    }
+
+
+    /**
+     * Same as {@link #checkBatch(String, Stream, int)} with the given priority for the {@link #setScheduler(LTScheduler) scheduler},
+     * e.g. {@link LTPriority#BULK} for background jobs sharing the client with interactive checks.
+     */
+    public List<LTBatchResult> checkBatch(@NonNull String language, @NonNull Stream<String> texts, int maxConcurrency, @NonNull LTPriority priority) throws InterruptedException {
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(Math.max(1, maxConcurrency / 2), 1, maxConcurrency);
+        List<CompletableFuture<LTBatchResult>> pending = new ArrayList<>();
+
+        Iterator<String> iterator = texts.iterator();
+        while (iterator.hasNext())
+            pending.add(submitBatchItem(pending.size(), language, iterator.next(), priority, limiter));
+
+        List<LTBatchResult> results = new ArrayList<>(pending.size());
+        for (CompletableFuture<LTBatchResult> future : pending)
+            results.add(future.join());
+
+        return results;
+    }
+
+
+    /**
+     * Checks a large text with the default chunk size ({@value #DEFAULT_CHUNK_SIZE}) and concurrency.
+     *
+     * @see #checkLargeText(String, String, int, int)
+     */
+    public LTResponse checkLargeText(@NonNull String language, @NonNull String text) throws IOException, InterruptedException {
+        return checkLargeText(language, text, DEFAULT_CHUNK_SIZE, DEFAULT_BATCH_CONCURRENCY);
+    }
+
+
+    /**
+     * Checks a large text by splitting it in chunks of at most maxChunkSize chars (on paragraph, then sentence boundaries)
+     * and checking the chunks in parallel, like {@link #checkBatch(String, Stream, int)}.
+     * The matches are merged in a single response, with offsets and context relative to the whole text.
+     * <p>
+     * Errors that depend on text across a chunk border (e.g. repeated words) can't be detected.
+     * <p>
+     * Chunks answered by the {@link #setFallback(LTFallback) fallback} are merged like the others, use
+     * {@link #checkLargeTextResult(String, String, int, int) checkLargeTextResult} to know which parts of the text
+     * were not checked by the server.
+     *
+     * @param language       A language code like en-US, de-DE, fr, or auto, used for all the chunks.
+     * @param text           The text to be checked.
+     * @param maxChunkSize   max chars sent in each request
+     * @param maxConcurrency upper bound of requests in flight
+     * @return a single response for the whole text, the software and language info are taken from the first chunk
+     * @throws IOException if any of the chunks fails, with the first error found
+     */
+    public LTResponse checkLargeText(@NonNull String language, @NonNull String text, int maxChunkSize, int maxConcurrency) throws IOException, InterruptedException {
+        return checkLargeTextResult(language, text, maxChunkSize, maxConcurrency).getResponse();
+    }
+
+
+    /**
+     * Same as {@link #checkLargeText(String, String, int, int)}, also returning the ranges of the text whose chunks
+     * were answered by the {@link #setFallback(LTFallback) fallback}.
+     *
+     * @param language       A language code like en-US, de-DE, fr, or auto, used for all the chunks.
+     * @param text           The text to be checked.
+     * @param maxChunkSize   max chars sent in each request
+     * @param maxConcurrency upper bound of requests in flight
+     * @return the merged response and the fallback chunks
+     * @throws IOException if any of the chunks fails, with the first error found
+     */
+    public LTLargeTextResult checkLargeTextResult(@NonNull String language, @NonNull String text, int maxChunkSize, int maxConcurrency) throws IOException, InterruptedException {
+
+        List<Integer> ends = TextChunker.split(text, maxChunkSize, TextChunker.toLocale(language));
+
+        List<String> chunks = new ArrayList<>(ends.size());
+        int start = 0;
+        for (int end : ends) {
+            chunks.add(text.substring(start, end));
+            start = end;
+        }
+
+        List<LTBatchResult> results = checkBatch(language, chunks.stream(), maxConcurrency);
+
+        LTLargeTextResult.LTLargeTextResultBuilder largeTextResult = LTLargeTextResult.builder();
+        List<LTMatch> matches = new ArrayList<>();
+        start = 0;
+        for (int i = 0; i < results.size(); i++) {
+            LTBatchResult result = results.get(i);
+
+            if (!result.isSuccess()) {
+                if (result.getError() instanceof IOException)
+                    throw (IOException) result.getError();
+                throw new IOException("error checking chunk " + i, result.getError());
+            }
+
+            for (LTMatch match : result.getResponse().getMatches())
+                matches.add(TextChunker.relocate(match, start, text));
+
+            if (result.isFallback())
+                largeTextResult.fallbackChunk(LTLargeTextResult.FallbackChunk.builder().start(start).end(ends.get(i)).cause(result.getFallbackCause()).build());
+
+            start = ends.get(i);
+        }
+
+        LTResponse first = results.get(0).getResponse();
+        return largeTextResult
+                .response(LTResponse.builder()
+                        .software(first.getSoftware())
+                        .language(first.getLanguage())
+                        .matches(matches)
+                        .build())
+                .build();
+    }
+
+
+    /**
+     * Sends one text of a batch, cached responses are returned right away without taking a concurrency slot.
+     */
+    private CompletableFuture<LTBatchResult> submitBatchItem(int index, String language, String text, LTPriority priority, AdaptiveConcurrencyLimiter limiter) throws InterruptedException {
+
+        LTCheckRequest request;
+        String cacheKey;
+        LTResponse cached;
+
+        try {
+            request = prioritize(newRequest(language, Objects.requireNonNull(text, "text is null"), null, null, null, null, null, null, null, null, null, null, null, null), priority, null);
+            cacheKey = cacheKey(request.getFormData());
+            cached = lookup(cacheKey);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(LTBatchResult.builder().index(index).error(e).build());
+        }
+
+        if (cached != null)
+            return CompletableFuture.completedFuture(LTBatchResult.builder().index(index).response(cached).build());
+
+        limiter.acquire();
+        long start = System.nanoTime();
+
+        try {
+            return parseAsync(send(request))
+                    .handle((response, throwable) -> toBatchResult(index, response, throwable, start, limiter))
+                    .thenCompose(result -> {
+                        if (result.isSuccess())
+                            remember(cacheKey, result.getResponse());
+                        else if (result.getError() instanceof IOException && fallback != null)
+                            return fallbackAsync(index, request, (IOException) result.getError());
+
+                        return CompletableFuture.completedFuture(result);
+                    });
+        } catch (RuntimeException e) {
+            limiter.onIgnore();
+            return CompletableFuture.completedFuture(LTBatchResult.builder().index(index).error(e).build());
+        }
+    }
+
+
+    /**
+     * Reads the body on the parse executor once the headers arrive. Errors complete the returned future with the
+     * original exception (not wrapped), and cancelling it cancels the response future.
+     */
+    private CompletableFuture<LTResponse> parseAsync(CompletableFuture<HttpResponse<Supplier<LTResponse>>> responseFuture) {
+        CompletableFuture<LTResponse> result = new CompletableFuture<>();
+        Executor executor = parseExecutor;
+
+        responseFuture.whenComplete((response, throwable) -> {
+            if (throwable != null) {
+                result.completeExceptionally(unwrap(throwable));
+                return;
+            }
+
+            try {
+                executor.execute(() -> {
+                    try {
+                        result.complete(response.body().get());
+                    } catch (RuntimeException e) {
+                        result.completeExceptionally(unwrap(e));
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(e);
+            }
+        });
+
+        result.whenComplete((response, throwable) -> {
+            if (result.isCancelled())
+                responseFuture.cancel(true);
+        });
+
+        return result;
+    }
+
+
+    private static LTBatchResult toBatchResult(int index, LTResponse response, Throwable throwable, long start, AdaptiveConcurrencyLimiter limiter) {
+
+        if (throwable == null) {
+            limiter.onSuccess(System.nanoTime() - start);
+            return LTBatchResult.builder().index(index).response(response).build();
+        }
+
+        Throwable cause = unwrap(throwable);
+
+        if ((cause instanceof LTServerException && ((LTServerException) cause).isOverload()) || cause instanceof HttpTimeoutException)
+            limiter.onOverload();
+        else
+            limiter.onIgnore();
+
+        return LTBatchResult.builder().index(index).error(cause).build();
+    }
+
+
+    /**
+     * @return the {@link #setFallback(LTFallback) fallback} response
+     * @throws IOException the error if there is no fallback or it gives no response
+     */
+    private LTResponse fallback(LTCheckRequest request, IOException error) throws IOException {
+        LTFallback fallback = this.fallback;
+        LTResponse response = fallback == null ? null : fallback.apply(request.getLanguage(), request.getText(), error);
+
+        if (response == null)
+            throw error;
+
+        return response;
+    }
+
+
+    private LTBatchResult fallback(int index, LTCheckRequest request, IOException error) {
+        try {
+            return LTBatchResult.builder().index(index).response(fallback(request, error)).fallback(true).fallbackCause(error).build();
+        } catch (IOException e) {
+            return LTBatchResult.builder().index(index).error(e).build();
+        }
+    }
+
+
+    /**
+     * Runs the fallback of a batch item on the parse executor, like the parsing of the responses.
+     */
+    private CompletableFuture<LTBatchResult> fallbackAsync(int index, LTCheckRequest request, IOException error) {
+        try {
+            return CompletableFuture.supplyAsync(() -> fallback(index, request, error), parseExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(LTBatchResult.builder().index(index).error(e).build());
+        }
+    }
+
+
+    private CompletableFuture<LTResponse> withFallback(LTCheckRequest request, CompletableFuture<LTResponse> future) {
+        if (fallback == null)
+            return future;
+
+        return future.exceptionallyCompose(throwable -> {
+            Throwable error = unwrap(throwable);
+            if (!(error instanceof IOException))
+                return CompletableFuture.failedFuture(error);
+
+            try {
+                return CompletableFuture.completedFuture(fallback(request, (IOException) error));
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+    }
+
+
+    /**
+     * @return the key of the request in the cache and result store, or null if none is configured
+     */
+    private String cacheKey(byte[] formData) {
+        return responseCache == null && resultStore == null ? null : LTResponseCache.key(formData);
+    }
+
+
+    /**
+     * Looks for a previous response in the cache, then in the result store (store hits are copied to the cache).
+     */
+    private LTResponse lookup(String cacheKey) {
+        if (cacheKey == null)
+            return null;
+
+        LTResponseCache cache = responseCache;
+        LTResponse response = cache == null ? null : cache.get(cacheKey);
+        if (response != null)
+            return response;
+
+        LTResultStore store = resultStore;
+        if (store == null)
+            return null;
+
+        try {
+            response = store.get(cacheKey);
+        } catch (IOException | IllegalStateException e) {
+            log.warn("error reading result store", e);
+            return null;
+        }
+
+        if (response != null && cache != null)
+            cache.put(cacheKey, response);
+
+        return response;
+    }
+
+
+    /**
+     * Keeps a new response in the cache and result store. When most of the recent responses come from a different
+     * server version than the one in the store, the stored results are invalidated. Responses of the other versions
+     * are not stored.
+     */
+    private void remember(String cacheKey, LTResponse response) {
+        if (cacheKey == null)
+            return;
+
+        LTResponseCache cache = responseCache;
+        if (cache != null)
+            cache.put(cacheKey, response);
+
+        LTResultStore store = resultStore;
+        if (store == null)
+            return;
+
+        try {
+            String version = response.getSoftware() == null ? null : response.getSoftware().getVersion();
+            if (version != null) {
+                String majority = serverVersion.add(version);
+                if (majority != null && !majority.equals(store.getVersion())) {
+                    store.retainVersion(majority);
+                    if (cache != null)
+                        cache.invalidateAll();
+                }
+
+                if (!version.equals(store.getVersion()))
+                    return;
+            }
+
+            store.put(cacheKey, response);
+        } catch (IOException | IllegalStateException e) {
+            log.warn("error writing result store", e);
+        }
+    }
+
+
+    private CompletableFuture<List<LTLanguage>> fetchLanguages() {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(loadBalancer.select("auto", null).getUrl() + "/v2/languages"))
+                .header("Accept", "application/json")
+                .GET();
+        if (requestTimeout != null)
+            builder.timeout(requestTimeout);
+
+        return httpClient.sendAsync(builder.build(), new JsonBodyHandler<>(LTLanguage[].class))
+                .thenApplyAsync(response -> List.of(response.body().get()), parseExecutor);
+    }
+
+
+    private HttpRequest buildRequest(LTNode node, HttpRequest.BodyPublisher body, Duration timeout) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(node.getUrl() + "/v2/check"))
+                .header("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8")
+                .header("Accept", "application/json")
+                .POST(body);
+
+        if (timeout != null)
+            builder.timeout(timeout);
+
+        return builder.build();
+    }
+
+
+    /**
+     * Sends the request, or joins an identical request of the same priority already in flight (if coalescing is enabled).
+     * Each caller gets its own copy of the future, so cancelling it doesn't affect the others.
+     * When every caller cancelled its copy the request itself is cancelled.
+     */
+    private CompletableFuture<HttpResponse<Supplier<LTResponse>>> send(LTCheckRequest request) {
+        //a request with a deadline could drop the shared request of callers without one
+        if (!requestCoalescing || request.getDeadline() != null)
+            return sendToServer(request, HttpRequest.BodyPublishers.ofByteArray(request.getFormData()), new JsonBodyHandler<>(LTResponse.class, ruleRegistry));
+
+        //ByteBuffer equals and hashCode compare the content of the body
+        ByteBuffer key = ByteBuffer.wrap(request.getFormData());
+        Map<ByteBuffer, SharedRequest> inFlight = this.inFlight.get(request.getPriority());
+
+        while (true) {
+            SharedRequest shared = new SharedRequest();
+            SharedRequest existing = inFlight.putIfAbsent(key, shared);
+
+            if (existing != null) {
+                CompletableFuture<HttpResponse<Supplier<LTResponse>>> copy = existing.join();
+                if (copy == null) {
+                    //all its callers cancelled it, it's being removed
+                    inFlight.remove(key, existing);
+                    continue;
+                }
+                coalescedRequests.incrementAndGet();
+                return copy;
+            }
+
+            shared.response.whenComplete((response, throwable) -> inFlight.remove(key, shared));
+            CompletableFuture<HttpResponse<Supplier<LTResponse>>> copy = shared.copy();
+
+            try {
+                shared.start(sendToServer(request, HttpRequest.BodyPublishers.ofByteArray(request.getFormData()), new JsonBodyHandler<>(LTResponse.class, ruleRegistry)));
+            } catch (RuntimeException e) {
+                shared.response.completeExceptionally(e);
+            }
+
+            return copy;
+        }
+    }
+
+
+    /**
+     * A request in flight shared by the callers that sent identical requests, counting the callers still waiting for it.
+     */
+    private static class SharedRequest {
+
+        final CompletableFuture<HttpResponse<Supplier<LTResponse>>> response = new CompletableFuture<>();
+
+        private int subscribers = 1;
+
+
+        /**
+         * @return the copy for one more caller, or null if the request was already cancelled by all its callers
+         */
+        synchronized CompletableFuture<HttpResponse<Supplier<LTResponse>>> join() {
+            if (subscribers == 0)
+                return null;
+
+            subscribers++;
+            return copy();
+        }
+
+
+        /**
+         * @return a copy of the response that, when cancelled, unsubscribes its caller
+         */
+        CompletableFuture<HttpResponse<Supplier<LTResponse>>> copy() {
+            CompletableFuture<HttpResponse<Supplier<LTResponse>>> copy = response.copy();
+            copy.whenComplete((value, throwable) -> {
+                if (copy.isCancelled())
+                    leave();
+            });
+            return copy;
+        }
+
+
+        void start(CompletableFuture<HttpResponse<Supplier<LTResponse>>> sent) {
+            forward(sent, response);
+        }
+
+
+        private void leave() {
+            synchronized (this) {
+                if (--subscribers > 0 || response.isDone())
+                    return;
+            }
+            //forward cancels the request sent
+            response.cancel(true);
+        }
+    }
+
+
+    /**
+     * Sends the request following the {@link #setRetryPolicy(LTRetryPolicy) retry policy}.
+     * Streamed bodies can't be sent twice, they get a single attempt.
+     * Hedging is only used with the {@link JsonBodyHandler}, the match consumer of a streamed response must see only one response.
+     */
+    private CompletableFuture<HttpResponse<Supplier<LTResponse>>> sendToServer(LTCheckRequest request, HttpRequest.BodyPublisher body, HttpResponse.BodyHandler<Supplier<LTResponse>> bodyHandler) {
+        LTRetryPolicy policy = retryPolicy;
+
+        if (policy == null || request.getFormData() == null)
+            return sendAttempt(request, body, bodyHandler, null, node -> {
+            });
+
+        Consumer<HttpResponse<Supplier<LTResponse>>> discard = bodyHandler instanceof JsonBodyHandler ? this::discard : null;
+
+        return new RetryingRequest<>(policy, (exclude, selected) -> sendAttempt(request, body, bodyHandler, exclude, selected), discard)
+                .start()
+                .getResult();
+    }
+
+
+    /**
+     * Reads and drops the body of a response nobody will use, so its connection can be reused.
+     */
+    private void discard(HttpResponse<Supplier<LTResponse>> response) {
+        parseExecutor.execute(() -> {
+            try {
+                response.body().get();
+            } catch (RuntimeException e) {
+                log.debug("discarded response failed", e);
+            }
+        });
+    }
+
+
+    /**
+     * Sends one attempt, measured for the {@link #setMetricsListener(LTMetricsListener) metrics listener} if there is one.
+     */
+    private CompletableFuture<HttpResponse<Supplier<LTResponse>>> sendAttempt(LTCheckRequest request, HttpRequest.BodyPublisher body, HttpResponse.BodyHandler<Supplier<LTResponse>> bodyHandler, LTNode exclude, Consumer<LTNode> selected) {
+        LTMetricsListener listener = metricsListener;
+        if (listener == null)
+            return dispatchAttempt(request, body, bodyHandler, exclude, selected);
+
+        MeteredBodyHandler metered = new MeteredBodyHandler(bodyHandler, listener, request, body.contentLength());
+        CompletableFuture<HttpResponse<Supplier<LTResponse>>> attempt = dispatchAttempt(request, body, metered, exclude, node -> {
+            metered.sending(node);
+            selected.accept(node);
+        });
+
+        attempt.whenComplete((response, throwable) -> {
+            Throwable error = unwrap(throwable);
+            if (error != null && !(error instanceof CancellationException))
+                metered.failed(error);
+        });
+
+        return attempt;
+    }
+
+
+    /**
+     * Sends one attempt once the {@link #setRateLimiter(LTRateLimiter) rate limiter} and the {@link #setScheduler(LTScheduler) scheduler} allow it.
+     * A waiting attempt doesn't hold a thread, and it is not sent if the returned future is cancelled meanwhile.
+     */
+    private CompletableFuture<HttpResponse<Supplier<LTResponse>>> dispatchAttempt(LTCheckRequest request, HttpRequest.BodyPublisher body, HttpResponse.BodyHandler<Supplier<LTResponse>> bodyHandler, LTNode exclude, Consumer<LTNode> selected) {
+        LTRateLimiter limiter = rateLimiter;
+        LTCircuitBreaker breaker = circuitBreaker;
+        LTScheduler scheduler = this.scheduler;
+        long waitNanos;
+
+        try {
+            if (request.isExpired())
+                throw new LTDeadlineExceededException();
+            if (breaker != null)
+                breaker.checkPermitted();
+            waitNanos = limiter == null ? 0 : limiter.reserve(request.getApiKey(), request.getCharacters());
+        } catch (LTQuotaExceededException | LTRequestTooLargeException | LTCircuitOpenException | LTDeadlineExceededException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        if (waitNanos == 0 && scheduler == null)
+            return sendToNode(request, body, bodyHandler, exclude, selected);
+
+        Supplier<CompletableFuture<HttpResponse<Supplier<LTResponse>>>> send = () -> {
+            try {
+                return sendToNode(request, body, bodyHandler, exclude, selected);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        };
+
+        CompletableFuture<HttpResponse<Supplier<LTResponse>>> result = new CompletableFuture<>();
+        Runnable dispatch = () -> {
+            if (result.isDone())
+                return;
+
+            if (scheduler == null) {
+                forward(send.get(), result);
+                return;
+            }
+
+            CompletableFuture<Void> slot = scheduler.acquire(request.getPriority(), request.getDeadline());
+            result.whenComplete((response, throwable) -> {
+                if (result.isCancelled())
+                    slot.cancel(false);
+            });
+            slot.whenComplete((ignored, throwable) -> {
+                if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                } else if (result.isDone()) {
+                    scheduler.release(request.getPriority());
+                } else {
+                    CompletableFuture<HttpResponse<Supplier<LTResponse>>> sent = send.get();
+                    sent.whenComplete((response, error) -> scheduler.release(request.getPriority()));
+                    forward(sent, result);
+                }
+            });
+        };
+
+        if (waitNanos == 0)
+            dispatch.run();
+        else
+            CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS).execute(dispatch);
+
+        return result;
+    }
+
+
+    /**
+     * Completes result like sent, and cancels sent when result is cancelled.
+     */
+    private static <T> void forward(CompletableFuture<T> sent, CompletableFuture<T> result) {
+        result.whenComplete((value, throwable) -> {
+            if (result.isCancelled())
+                sent.cancel(true);
+        });
+        sent.whenComplete((value, throwable) -> {
+            if (throwable != null)
+                result.completeExceptionally(throwable);
+            else
+                result.complete(value);
+        });
+    }
+
+
+    /**
+     * @return the future of the HttpClient itself, so cancelling it aborts the exchange
+     */
+    private CompletableFuture<HttpResponse<Supplier<LTResponse>>> sendToNode(LTCheckRequest request, HttpRequest.BodyPublisher body, HttpResponse.BodyHandler<Supplier<LTResponse>> bodyHandler, LTNode exclude, Consumer<LTNode> selected) {
+        LTCircuitBreaker breaker = circuitBreaker;
+        Duration timeout = requestTimeout;
+        try {
+            if (request.getDeadline() != null) {
+                long remaining = request.getDeadline() - System.nanoTime();
+                if (remaining <= 0)
+                    throw new LTDeadlineExceededException();
+                if (timeout == null || timeout.toNanos() > remaining)
+                    timeout = Duration.ofNanos(remaining);
+            }
+            if (breaker != null)
+                breaker.acquire();
+        } catch (LTCircuitOpenException | LTDeadlineExceededException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        LTNode node = loadBalancer.select(request.getLanguage(), exclude);
+        long start = System.nanoTime();
+
+        selected.accept(node);
+        node.onStart();
+        try {
+            CompletableFuture<HttpResponse<Supplier<LTResponse>>> sent = httpClient.sendAsync(buildRequest(node, body, timeout), bodyHandler);
+            sent.whenComplete((response, throwable) -> {
+                long latency = System.nanoTime() - start;
+
+                if (throwable instanceof CancellationException) {
+                    node.onIgnore();
+                    if (breaker != null)
+                        breaker.onIgnore();
+                    return;
+                }
+
+                if (throwable != null || response.statusCode() >= HttpURLConnection.HTTP_INTERNAL_ERROR)
+                    node.onFailure();
+                else
+                    node.onSuccess(latency);
+
+                if (breaker != null) {
+                    if (throwable != null || response.statusCode() >= HttpURLConnection.HTTP_INTERNAL_ERROR || response.statusCode() == 429)
+                        breaker.onFailure(latency);
+                    else
+                        breaker.onSuccess(latency);
+                }
+            });
+            return sent;
+        } catch (RuntimeException e) {
+            node.onIgnore();
+            if (breaker != null)
+                breaker.onIgnore();
+            throw e;
+        }
+    }
+
+
+    /**
+     * Reads the response body, rethrowing the IOException hidden by the {@link JsonBodyHandler} supplier.
+     */
+    private static LTResponse readBody(HttpResponse<Supplier<LTResponse>> response) throws IOException {
+        try {
+            return response.body().get();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+
+    private static IOException toIOException(Throwable throwable) {
+        throwable = unwrap(throwable);
+
+        if (throwable instanceof IOException)
+            return (IOException) throwable;
+        if (throwable instanceof RuntimeException)
+            throw (RuntimeException) throwable;
+        if (throwable instanceof Error)
+            throw (Error) throwable;
+
+        return new IOException(throwable);
+    }
+
+
+    private static Throwable unwrap(Throwable throwable) {
+        while ((throwable instanceof CompletionException || throwable instanceof UncheckedIOException) && throwable.getCause() != null)
+            throwable = throwable.getCause();
+
+        return throwable;
+    }
+
+
+    /**
+     * Parameters must sent in x-www-form-urlencoded, this function encodes all non NULL params
+     *
+     * @return the encoded body, as UTF-8 bytes
+     */
+    private LTCheckRequest newRequest(String language, String text, String data, String username, String apiKey, String dicts, String motherTongue, String preferedVariants, String enabledRules, String disabledRules, String enabledCategories, String disabledCategries, Boolean enabledOnly, String level) {
+        long start = System.nanoTime();
+        language = languageCatalog.normalize(Objects.requireNonNull(language, "language is null"));
+        byte[] formData = getFormData(language, text, data, username, apiKey, dicts, motherTongue, preferedVariants, enabledRules, disabledRules, enabledCategories, disabledCategries, enabledOnly, level);
+
+        return LTCheckRequest.builder()
+                .language(language)
+                .apiKey(apiKey)
+                .text(text != null ? text : data)
+                .characters(text != null ? text.length() : data != null ? data.length() : 0)
+                .formData(formData)
+                .encodeNanos(System.nanoTime() - start)
+                .build();
+    }
 
 
-        if (level != null)
-            formData += "&" + URLEncoder.encode("level", StandardCharsets.UTF_8) + "=" + URLEncoder.encode(level, StandardCharsets.UTF_8);
-        return formData;
+    static byte[] getFormData(String language, String text, String data, String username, String apiKey, String dicts, String motherTongue, String preferedVariants, String enabledRules, String disabledRules, String enabledCategories, String disabledCategries, Boolean enabledOnly, String level) {
+        return new FormBodyEncoder()
+                .add("language", Objects.requireNonNull(language, "language is null"))
+                .add("text", text)
+                .add("data", data)
+                .add("username", username)
+                .add("apiKey", apiKey)
+                .add("dicts", dicts)
+                .add("motherTongue", motherTongue)
+                .add("preferedVariants", preferedVariants)
+                .add("enabledRules", enabledRules)
+                .add("disabledRules", disabledRules)
+                .add("enabledCategories", enabledCategories)
+                .add("disabledCategries", disabledCategries)
+                .add("enabledOnly", enabledOnly == null ? null : enabledOnly.toString())
+                .add("level", level)
+                .toByteArray();
     }
 
 
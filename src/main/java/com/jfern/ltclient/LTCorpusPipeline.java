@@ -0,0 +1,504 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.jfern.ltclient.POJO.LTResponse;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Checks a corpus: text files of directories and JSONL dumps (one document per line).
+ * <p>
+ * The run has three overlapping stages connected by bounded queues, so the server never waits on file I/O:
+ * a reader thread loads the documents, maxConcurrency threads check them (in chunks, see {@link LTClient#checkLargeText}),
+ * and the calling thread writes the results to the sink in completion order.
+ * Failed documents are written as errors, they don't stop the run.
+ * <p>
+ * With a checkpoint file, every checkpointInterval documents the sink is flushed and the ids of the documents checked
+ * successfully are appended to the checkpoint. A new run with the same checkpoint skips those documents and, for an output file,
+ * discards what was written after the last checkpoint, so an interrupted run resumes where it stopped.
+ * Failed documents are not checkpointed, a new run checks them again (their error stays in the output before the new result).
+ * Example:
+ * <pre>{@code
+ * LTCorpusSummary summary = LTCorpusPipeline.builder()
+ *         .client(client)
+ *         .language("en-US")
+ *         .input(Path.of("docs"))
+ *         .input(Path.of("dump.jsonl"))
+ *         .output(Path.of("results.jsonl"))
+ *         .checkpoint(Path.of("results.checkpoint"))
+ *         .build()
+ *         .run();
+ * }</pre>
+ * It can also be run from the command line, see {@link #main(String[])}.
+ */
+@Slf4j
+public class LTCorpusPipeline {
+
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 100;
+    public static final Set<String> DEFAULT_EXTENSIONS = Set.of("txt", "md", "jsonl");
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    private static final Document END_OF_INPUT = new Document(null, null, null, null);
+    private static final LTCorpusResult END_OF_RESULTS = LTCorpusResult.builder().build();
+
+    private final LTClient client;
+    private final String language;
+    private final List<Path> inputs;
+    private final Set<String> extensions;
+    private final Path output;
+    private final LTCorpusSink sink;
+    private final Path checkpoint;
+    private final int maxConcurrency;
+    private final int maxChunkSize;
+    private final int checkpointInterval;
+    private final String idField;
+    private final String textField;
+
+
+    /**
+     * @param client             client used for the checks
+     * @param language           language of the documents, default auto. JSONL lines can override it with a "language" field
+     * @param inputs             files and directories (walked recursively), files ending in .jsonl hold one document per line
+     * @param extensions         extensions of the files read in directories, default {@link #DEFAULT_EXTENSIONS}
+     * @param output             JSONL file written with {@link LTJsonlSink}, either output or sink is required
+     * @param sink               receives the results (a custom sink receives again the results written after the last checkpoint on resume)
+     * @param checkpoint         file recording the documents checked successfully, to resume interrupted runs, default none
+     * @param maxConcurrency     documents checked at the same time, default {@value LTClient#DEFAULT_BATCH_CONCURRENCY}
+     * @param maxChunkSize       max chars sent in each request, default {@value LTClient#DEFAULT_CHUNK_SIZE}
+     * @param checkpointInterval documents written between checkpoints, default {@value #DEFAULT_CHECKPOINT_INTERVAL}
+     * @param idField            field of the JSONL lines with the document id, default "id"
+     * @param textField          field of the JSONL lines with the text, default "text"
+     */
+    @Builder
+    private LTCorpusPipeline(@NonNull LTClient client, String language, @Singular List<Path> inputs, Set<String> extensions, Path output, LTCorpusSink sink, Path checkpoint,
+                             Integer maxConcurrency, Integer maxChunkSize, Integer checkpointInterval, String idField, String textField) {
+        if ((output == null) == (sink == null))
+            throw new IllegalArgumentException("either output or sink is required");
+
+        this.client = client;
+        this.language = language != null ? language : "auto";
+        this.inputs = List.copyOf(inputs);
+        this.extensions = extensions != null ? Set.copyOf(extensions) : DEFAULT_EXTENSIONS;
+        this.output = output;
+        this.sink = sink;
+        this.checkpoint = checkpoint;
+        this.maxConcurrency = maxConcurrency != null ? maxConcurrency : LTClient.DEFAULT_BATCH_CONCURRENCY;
+        this.maxChunkSize = maxChunkSize != null ? maxChunkSize : LTClient.DEFAULT_CHUNK_SIZE;
+        this.checkpointInterval = checkpointInterval != null ? checkpointInterval : DEFAULT_CHECKPOINT_INTERVAL;
+        this.idField = idField != null ? idField : "id";
+        this.textField = textField != null ? textField : "text";
+
+        if (this.maxConcurrency < 1)
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + this.maxConcurrency);
+        if (this.checkpointInterval < 1)
+            throw new IllegalArgumentException("checkpointInterval must be positive: " + this.checkpointInterval);
+    }
+
+
+    /**
+     * Runs the pipeline until all the inputs are checked and written.
+     *
+     * @return the counts of this run
+     * @throws IOException if an input can't be read or the sink fails, the documents written until then are checkpointed
+     *                     (also when the run is interrupted)
+     */
+    public LTCorpusSummary run() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+
+        Checkpoint progress = checkpoint != null ? Checkpoint.load(checkpoint) : new Checkpoint(null, new HashSet<>(), -1);
+        LTJsonlSink jsonl = output != null ? new LTJsonlSink(output, Math.max(0, progress.position)) : null;
+        LTCorpusSink target = jsonl != null ? jsonl : sink;
+
+        BlockingQueue<Document> documents = new ArrayBlockingQueue<>(maxConcurrency * 2);
+        BlockingQueue<LTCorpusResult> results = new ArrayBlockingQueue<>(maxConcurrency * 2);
+        AtomicReference<IOException> readError = new AtomicReference<>();
+        AtomicLong skipped = new AtomicLong();
+
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(maxConcurrency + 1, runnable -> {
+            Thread thread = new Thread(runnable, "LTCorpusPipeline-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long written = 0;
+        long failed = 0;
+        long fallback = 0;
+        long matches = 0;
+
+        try (target) {
+            executor.execute(() -> {
+                try {
+                    read(progress.documents, documents, skipped);
+                } catch (IOException | UncheckedIOException e) {
+                    readError.set(e instanceof UncheckedIOException ? ((UncheckedIOException) e).getCause() : (IOException) e);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    for (int i = 0; i < maxConcurrency; i++)
+                        documents.put(END_OF_INPUT);
+                } catch (InterruptedException ignored) {
+                    //the run was aborted
+                }
+            });
+
+            for (int i = 0; i < maxConcurrency; i++) {
+                executor.execute(() -> {
+                    try {
+                        Document document;
+                        while ((document = documents.take()) != END_OF_INPUT)
+                            results.put(check(document));
+                        results.put(END_OF_RESULTS);
+                    } catch (InterruptedException ignored) {
+                        //the run was aborted
+                    }
+                });
+            }
+
+            List<String> pending = new ArrayList<>();
+            int sinceCheckpoint = 0;
+            int ended = 0;
+            try {
+                while (ended < maxConcurrency) {
+                    LTCorpusResult result = results.take();
+                    if (result == END_OF_RESULTS) {
+                        ended++;
+                        continue;
+                    }
+
+                    target.write(result);
+                    written++;
+                    if (!result.isSuccess()) {
+                        failed++;
+                    } else {
+                        pending.add(result.getDocumentId());
+                        if (!result.getFallbackChunks().isEmpty())
+                            fallback++;
+                        if (result.getResponse().getMatches() != null)
+                            matches += result.getResponse().getMatches().size();
+                    }
+
+                    if (++sinceCheckpoint >= checkpointInterval) {
+                        checkpoint(progress, target, jsonl, pending);
+                        sinceCheckpoint = 0;
+                    }
+                }
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                //before the sink is closed, so the documents written until the failure are not checked again
+                try {
+                    checkpoint(progress, target, jsonl, pending);
+                } catch (IOException | RuntimeException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+
+            checkpoint(progress, target, jsonl, pending);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (readError.get() != null)
+            throw readError.get();
+
+        return LTCorpusSummary.builder()
+                .documents(written)
+                .skipped(skipped.get())
+                .failed(failed)
+                .fallback(fallback)
+                .matches(matches)
+                .elapsed(Duration.ofNanos(System.nanoTime() - start))
+                .build();
+    }
+
+
+    private void checkpoint(Checkpoint progress, LTCorpusSink target, LTJsonlSink jsonl, List<String> pending) throws IOException {
+        if (pending.isEmpty())
+            return;
+
+        target.flush();
+        if (progress.file != null)
+            progress.append(jsonl != null ? jsonl.getPosition() : -1, pending);
+        pending.clear();
+    }
+
+
+    private LTCorpusResult check(Document document) throws InterruptedException {
+        LTCorpusResult.LTCorpusResultBuilder result = LTCorpusResult.builder().documentId(document.id).language(document.language);
+        if (document.error != null)
+            return result.error(document.error).build();
+
+        try {
+            if (document.text.isBlank())
+                return result.response(LTResponse.builder().matches(List.of()).build()).build();
+
+            LTLargeTextResult checked = client.checkLargeTextResult(document.language, document.text, maxChunkSize, 1);
+            return result.response(checked.getResponse()).fallbackChunks(checked.getFallbackChunks()).build();
+        } catch (IOException | RuntimeException e) {
+            log.debug("error checking {}", document.id, e);
+            return result.error(e).build();
+        }
+    }
+
+
+    private void read(Set<String> done, BlockingQueue<Document> documents, AtomicLong skipped) throws IOException, InterruptedException {
+        for (Path input : inputs) {
+            if (Files.isDirectory(input)) {
+                List<Path> files;
+                try (Stream<Path> walk = Files.walk(input)) {
+                    files = walk.filter(Files::isRegularFile).filter(this::accepted).sorted().toList();
+                }
+                for (Path file : files)
+                    readFile(file, done, documents, skipped);
+            } else {
+                readFile(input, done, documents, skipped);
+            }
+        }
+    }
+
+
+    private boolean accepted(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && extensions.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+
+    private void readFile(Path file, Set<String> done, BlockingQueue<Document> documents, AtomicLong skipped) throws IOException, InterruptedException {
+        if (!file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".jsonl")) {
+            String id = file.toString();
+            if (done.contains(id))
+                skipped.incrementAndGet();
+            else
+                documents.put(new Document(id, language, Files.readString(file, StandardCharsets.UTF_8), null));
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.isBlank())
+                    continue;
+
+                Document document = parseLine(file + ":" + number, line);
+                if (done.contains(document.id))
+                    skipped.incrementAndGet();
+                else
+                    documents.put(document);
+            }
+        }
+    }
+
+
+    private Document parseLine(String location, String line) {
+        JsonNode node;
+        try {
+            node = om.readTree(line);
+        } catch (IOException e) {
+            return new Document(location, language, null, new IOException("invalid JSON line " + location, e));
+        }
+
+        JsonNode id = node.get(idField);
+        String documentId = id != null && !id.isNull() ? id.asText() : location;
+        String documentLanguage = node.hasNonNull("language") ? node.get("language").asText() : language;
+
+        JsonNode text = node.get(textField);
+        if (text == null || !text.isTextual())
+            return new Document(documentId, documentLanguage, null, new IOException("no " + textField + " field in " + location));
+
+        return new Document(documentId, documentLanguage, text.asText(), null);
+    }
+
+
+    /**
+     * Runs a pipeline from the command line, resuming from output.checkpoint when it exists:
+     * <pre>
+     * java -cp LTClient.jar:... com.jfern.ltclient.LTCorpusPipeline --server http://localhost:8081 --output results.jsonl
+     *      [--language en-US] [--concurrency 16] [--chunk-size 10000] input...
+     * </pre>
+     */
+    public static void main(String[] args) throws Exception {
+        String server = null;
+        Path output = null;
+        LTCorpusPipelineBuilder builder = builder();
+
+        Iterator<String> arguments = List.of(args).iterator();
+        while (arguments.hasNext()) {
+            String argument = arguments.next();
+            if (!argument.startsWith("--")) {
+                builder.input(Path.of(argument));
+                continue;
+            }
+            if (!arguments.hasNext())
+                usage("missing value of " + argument);
+
+            String value = arguments.next();
+            switch (argument) {
+                case "--server" -> server = value;
+                case "--output" -> output = Path.of(value);
+                case "--language" -> builder.language(value);
+                case "--concurrency" -> builder.maxConcurrency(Integer.parseInt(value));
+                case "--chunk-size" -> builder.maxChunkSize(Integer.parseInt(value));
+                default -> usage("unknown option " + argument);
+            }
+        }
+
+        if (server == null || output == null)
+            usage("--server and --output are required");
+
+        try (LTClient client = new LTClient(server)) {
+            LTCorpusSummary summary = builder
+                    .client(client)
+                    .output(output)
+                    .checkpoint(output.resolveSibling(output.getFileName() + ".checkpoint"))
+                    .build()
+                    .run();
+            System.out.println(summary);
+        }
+    }
+
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("usage: LTCorpusPipeline --server <url> --output <file.jsonl> [--language <code>] [--concurrency <n>] [--chunk-size <chars>] <file or directory>...");
+        System.exit(2);
+    }
+
+
+    private static class Document {
+
+        final String id;
+        final String language;
+        final String text;
+        final IOException error;
+
+        Document(String id, String language, String text, IOException error) {
+            this.id = id;
+            this.language = language;
+            this.text = text;
+            this.error = error;
+        }
+    }
+
+
+    /**
+     * Append only file of JSON lines {"position": output length, "documents": [ids written since the previous line]}.
+     * A line cut by a crash is ignored, with the documents it lists.
+     */
+    private static class Checkpoint {
+
+        final Path file;
+        final Set<String> documents;
+        long position;
+
+        Checkpoint(Path file, Set<String> documents, long position) {
+            this.file = file;
+            this.documents = documents;
+            this.position = position;
+        }
+
+        static Checkpoint load(Path file) throws IOException {
+            Set<String> documents = new HashSet<>();
+            long position = -1;
+            long valid = 0;
+
+            if (Files.exists(file)) {
+                byte[] content = Files.readAllBytes(file);
+                int start = 0;
+                for (int i = 0; i < content.length; i++) {
+                    if (content[i] != '\n')
+                        continue;
+
+                    JsonNode line = om.readTree(content, start, i - start);
+                    position = line.get("position").asLong();
+                    for (JsonNode id : line.get("documents"))
+                        documents.add(id.asText());
+                    start = i + 1;
+                    valid = start;
+                }
+                if (valid < content.length)
+                    log.warn("ignoring incomplete last line of {}", file);
+            }
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+            return new Checkpoint(file, documents, position);
+        }
+
+        void append(long position, List<String> ids) throws IOException {
+            ObjectNode line = om.createObjectNode().put("position", position);
+            ids.forEach(line.putArray("documents")::add);
+
+            byte[] bytes = (om.writeValueAsString(line) + "\n").getBytes(StandardCharsets.UTF_8);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+                channel.force(false);
+            }
+
+            documents.addAll(ids);
+            this.position = position;
+        }
+    }
+}
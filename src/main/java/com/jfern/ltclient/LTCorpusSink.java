@@ -0,0 +1,61 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives the results of a {@link LTCorpusPipeline}, in completion order, from a single thread.
+ * Example, collecting the matches in a table:
+ * <pre>{@code
+ * LTMatchTable table = LTMatchTable.builder().build();
+ * LTCorpusSink sink = result -> {
+ *     if (result.isSuccess())
+ *         table.add(result.getDocumentId(), result.getResponse());
+ * };
+ * }</pre>
+ *
+ * @see LTJsonlSink
+ */
+@FunctionalInterface
+public interface LTCorpusSink extends Closeable {
+
+    void write(LTCorpusResult result) throws IOException;
+
+
+    /**
+     * Makes the results written so far durable, called before each checkpoint.
+     */
+    default void flush() throws IOException {
+    }
+
+
+    @Override
+    default void close() throws IOException {
+    }
+}
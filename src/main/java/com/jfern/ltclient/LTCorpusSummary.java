@@ -0,0 +1,64 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Counts of a {@link LTCorpusPipeline} run.
+ */
+@Builder
+@Getter
+public class LTCorpusSummary {
+
+    /**
+     * documents checked by this run, including the failed ones
+     */
+    private final long documents;
+
+    /**
+     * documents skipped because a previous run had checked them
+     */
+    private final long skipped;
+    private final long failed;
+
+    /**
+     * documents checked, but partly answered by the {@link LTClient#setFallback(LTFallback) fallback}
+     */
+    private final long fallback;
+    private final long matches;
+    private final Duration elapsed;
+
+
+    @Override
+    public String toString() {
+        return String.format("documents=%d skipped=%d failed=%d fallback=%d matches=%d elapsed=%.1fs", documents, skipped, failed, fallback, matches, elapsed.toMillis() / 1000.0);
+    }
+}
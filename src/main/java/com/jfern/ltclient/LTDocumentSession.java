@@ -0,0 +1,160 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTDetectedLanguage;
+import com.jfern.ltclient.POJO.LTMatch;
+import com.jfern.ltclient.POJO.LTResponse;
+import com.jfern.ltclient.POJO.LTSoftware;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the check results of a document that is being edited, so each new version only sends the paragraphs
+ * that changed to the server. Matches of unchanged paragraphs are reused, with offsets moved to their new position.
+ * <p>
+ * Paragraphs are checked independently, so errors that span a paragraph break are not detected.
+ * Responses of the {@link LTClient#setFallback(LTFallback) fallback} are returned but not kept,
+ * those paragraphs are checked again on the next update.
+ * Instances are thread safe, but updates are serialized.
+ */
+public class LTDocumentSession {
+
+    private final LTClient client;
+    private final String language;
+
+    /**
+     * server matches of each paragraph text, with offsets relative to the paragraph
+     */
+    private Map<String, List<LTMatch>> paragraphMatches = new HashMap<>();
+    private LTSoftware software;
+    private LTDetectedLanguage detectedLanguage;
+
+    /**
+     * number of paragraphs sent to the server in the last update
+     */
+    @Getter
+    private volatile int lastCheckedParagraphs;
+
+
+    /**
+     * @param client   client used to check the changed paragraphs
+     * @param language A language code like en-US, de-DE, fr, or auto, used for all the paragraphs.
+     */
+    public LTDocumentSession(@NonNull LTClient client, @NonNull String language) {
+        this.client = client;
+        this.language = language;
+    }
+
+
+    /**
+     * Checks the new version of the document. Only paragraphs whose text is not in the previous version are sent to the server,
+     * in parallel.
+     *
+     * @param text the whole document text
+     * @return matches for the whole document, offsets relative to the given text
+     * @throws IOException if the check of any changed paragraph fails, the session state is left unchanged
+     */
+    public synchronized LTResponse update(@NonNull String text) throws IOException, InterruptedException {
+
+        List<Integer> ends = TextChunker.paragraphs(text);
+        List<String> paragraphs = new ArrayList<>(ends.size());
+
+        int start = 0;
+        for (int end : ends) {
+            paragraphs.add(text.substring(start, end));
+            start = end;
+        }
+
+        List<String> dirty = paragraphs.stream()
+                .filter(paragraph -> !paragraph.isBlank() && !paragraphMatches.containsKey(paragraph))
+                .distinct()
+                .toList();
+
+        Map<String, List<LTMatch>> current = new HashMap<>();
+        Map<String, List<LTMatch>> fallbacks = new HashMap<>();
+
+        if (!dirty.isEmpty()) {
+            List<LTBatchResult> results = client.checkBatch(language, dirty.stream(), LTClient.DEFAULT_BATCH_CONCURRENCY);
+
+            for (LTBatchResult result : results) {
+                if (!result.isSuccess()) {
+                    if (result.getError() instanceof IOException)
+                        throw (IOException) result.getError();
+                    throw new IOException("error checking paragraph", result.getError());
+                }
+
+                List<LTMatch> found = result.getResponse().getMatches() != null ? result.getResponse().getMatches() : List.of();
+                if (result.isFallback()) {
+                    fallbacks.put(dirty.get(result.getIndex()), found);
+                } else {
+                    current.put(dirty.get(result.getIndex()), found);
+                    software = result.getResponse().getSoftware();
+                    detectedLanguage = result.getResponse().getLanguage();
+                }
+            }
+        }
+
+        List<LTMatch> matches = new ArrayList<>();
+        for (int i = 0; i < paragraphs.size(); i++) {
+            String paragraph = paragraphs.get(i);
+            start = i == 0 ? 0 : ends.get(i - 1);
+
+            if (paragraph.isBlank())
+                continue;
+
+            List<LTMatch> found = fallbacks.containsKey(paragraph)
+                    ? fallbacks.get(paragraph)
+                    : current.computeIfAbsent(paragraph, paragraphMatches::get);
+            for (LTMatch match : found)
+                matches.add(TextChunker.relocate(match, start, text));
+        }
+
+        paragraphMatches = current;
+        lastCheckedParagraphs = dirty.size();
+
+        return LTResponse.builder()
+                .software(software)
+                .language(detectedLanguage)
+                .matches(matches)
+                .build();
+    }
+
+
+    /**
+     * Drops all cached results, the next update checks the whole document.
+     */
+    public synchronized void reset() {
+        paragraphMatches = new HashMap<>();
+    }
+}
@@ -0,0 +1,56 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Gives a replacement response when a check fails, e.g. while the {@link LTCircuitBreaker} is open.
+ * See {@link LTClient#setFallback(LTFallback)}.
+ */
+@FunctionalInterface
+public interface LTFallback {
+
+    /**
+     * @param language the language of the failed check
+     * @param text     the text (or data) of the failed check
+     * @param error    why it failed, e.g. a {@link LTCircuitOpenException} or a {@link LTServerException}
+     * @return the response to give to the caller, or null to give the error
+     */
+    LTResponse apply(String language, String text, IOException error);
+
+
+    /**
+     * @return a fallback answering with no matches, so the text is shown as correct while the server is unavailable
+     */
+    static LTFallback empty() {
+        return (language, text, error) -> LTResponse.builder().matches(List.of()).build();
+    }
+}
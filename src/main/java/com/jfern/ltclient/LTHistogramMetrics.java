@@ -0,0 +1,113 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the measures of all the requests in {@link LTHistogram histograms}, to be read by a dashboard or logged periodically.
+ * Example:
+ * <pre>{@code
+ * LTHistogramMetrics metrics = new LTHistogramMetrics();
+ * client.setMetricsListener(metrics);
+ * ...
+ * long p99 = metrics.getTimeToFirstByte().getValueAtPercentile(99);
+ * }</pre>
+ */
+@Getter
+public class LTHistogramMetrics implements LTMetricsListener {
+
+    private final LTHistogram encode = new LTHistogram();
+    private final LTHistogram queueWait = new LTHistogram();
+    private final LTHistogram timeToFirstByte = new LTHistogram();
+    private final LTHistogram transfer = new LTHistogram();
+    private final LTHistogram parse = new LTHistogram();
+    private final LTHistogram requestBytes = new LTHistogram();
+    private final LTHistogram responseBytes = new LTHistogram();
+    private final LTHistogram matchCount = new LTHistogram();
+
+    private final LongAdder errors = new LongAdder();
+
+    @Getter(AccessLevel.NONE)
+    private final Map<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, LongAdder> languages = new ConcurrentHashMap<>();
+
+
+    @Override
+    public void onCheck(LTCheckEvent event) {
+        recordIfKnown(encode, event.getEncodeNanos());
+        recordIfKnown(queueWait, event.getQueueWaitNanos());
+        recordIfKnown(timeToFirstByte, event.getTimeToFirstByteNanos());
+        recordIfKnown(transfer, event.getTransferNanos());
+        recordIfKnown(parse, event.getParseNanos());
+        recordIfKnown(requestBytes, event.getRequestBytes());
+        recordIfKnown(responseBytes, event.getStatusCode() == 0 ? -1 : event.getResponseBytes());
+        recordIfKnown(matchCount, event.getMatchCount());
+
+        if (event.getError() != null)
+            errors.increment();
+        statusCodes.computeIfAbsent(event.getStatusCode(), code -> new LongAdder()).increment();
+        if (event.getLanguage() != null)
+            languages.computeIfAbsent(event.getLanguage(), language -> new LongAdder()).increment();
+    }
+
+
+    /**
+     * @return requests per HTTP status code, 0 for the requests without response
+     */
+    public Map<Integer, Long> getStatusCodes() {
+        return snapshot(statusCodes);
+    }
+
+
+    /**
+     * @return requests per language code, as given to the check methods
+     */
+    public Map<String, Long> getLanguages() {
+        return snapshot(languages);
+    }
+
+
+    private static void recordIfKnown(LTHistogram histogram, long value) {
+        if (value >= 0)
+            histogram.record(value);
+    }
+
+
+    private static <K> Map<K, Long> snapshot(Map<K, LongAdder> counters) {
+        Map<K, Long> snapshot = new TreeMap<>();
+        counters.forEach((key, counter) -> snapshot.put(key, counter.sum()));
+        return snapshot;
+    }
+}
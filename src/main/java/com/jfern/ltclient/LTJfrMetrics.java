@@ -0,0 +1,124 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Emits each request as a JDK Flight Recorder event (com.jfern.ltclient.Check), to see the checks next to GC,
+ * thread and socket events in JDK Mission Control. The events cost nothing while no recording is running.
+ * Example: {@code client.setMetricsListener(new LTJfrMetrics());}
+ * <p>
+ * The library only has a static dependency on jdk.jfr, on the module path the application must resolve it
+ * (e.g. {@code --add-modules jdk.jfr}) to use this class.
+ */
+public class LTJfrMetrics implements LTMetricsListener {
+
+    @Override
+    public void onCheck(LTCheckEvent event) {
+        CheckEvent jfrEvent = new CheckEvent();
+        if (!jfrEvent.shouldCommit())
+            return;
+
+        jfrEvent.language = event.getLanguage();
+        jfrEvent.priority = event.getPriority() == null ? null : event.getPriority().name();
+        jfrEvent.server = event.getServer();
+        jfrEvent.statusCode = event.getStatusCode();
+        jfrEvent.error = event.getError() == null ? null : event.getError().toString();
+        jfrEvent.encode = event.getEncodeNanos();
+        jfrEvent.queueWait = event.getQueueWaitNanos();
+        jfrEvent.timeToFirstByte = event.getTimeToFirstByteNanos();
+        jfrEvent.transfer = event.getTransferNanos();
+        jfrEvent.parse = event.getParseNanos();
+        jfrEvent.requestBytes = event.getRequestBytes();
+        jfrEvent.responseBytes = event.getResponseBytes();
+        jfrEvent.matchCount = event.getMatchCount();
+        jfrEvent.commit();
+    }
+
+
+    @Name("com.jfern.ltclient.Check")
+    @Label("LanguageTool Check")
+    @Category("LTClient")
+    @Description("One request to a LanguageTool server")
+    @StackTrace(false)
+    static class CheckEvent extends Event {
+
+        @Label("Language")
+        String language;
+
+        @Label("Priority")
+        String priority;
+
+        @Label("Server")
+        String server;
+
+        @Label("Status Code")
+        int statusCode;
+
+        @Label("Error")
+        String error;
+
+        @Label("Encode")
+        @Timespan(Timespan.NANOSECONDS)
+        long encode;
+
+        @Label("Queue Wait")
+        @Timespan(Timespan.NANOSECONDS)
+        long queueWait;
+
+        @Label("Time To First Byte")
+        @Timespan(Timespan.NANOSECONDS)
+        long timeToFirstByte;
+
+        @Label("Transfer")
+        @Timespan(Timespan.NANOSECONDS)
+        long transfer;
+
+        @Label("Parse")
+        @Timespan(Timespan.NANOSECONDS)
+        long parse;
+
+        @Label("Request Size")
+        @DataAmount
+        long requestBytes;
+
+        @Label("Response Size")
+        @DataAmount
+        long responseBytes;
+
+        @Label("Matches")
+        int matchCount;
+    }
+}
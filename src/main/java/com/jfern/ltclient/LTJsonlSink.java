@@ -0,0 +1,128 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes each result as a JSON line: {@code {"id": ..., "language": ..., "response": {...}}}, or
+ * {@code {"id": ..., "language": ..., "error": "message"}} for the documents that failed.
+ * Documents partly answered by the fallback also have {@code "fallback": [[start, end], ...]}, the ranges of the text
+ * that were not checked by the server.
+ */
+public class LTJsonlSink implements LTCorpusSink {
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    private final FileChannel channel;
+    private final OutputStream out;
+
+    //end of the last line written completely
+    private long position;
+
+
+    /**
+     * Creates (or empties) the file.
+     */
+    public LTJsonlSink(@NonNull Path file) throws IOException {
+        this(file, 0);
+    }
+
+
+    /**
+     * Opens the file and appends after the given position, what follows it is discarded
+     * (e.g. the results written after the last checkpoint of an interrupted run).
+     */
+    public LTJsonlSink(@NonNull Path file, long position) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (position > channel.size())
+            throw new IOException(file + " is shorter than the resume position " + position);
+
+        channel.truncate(position);
+        channel.position(position);
+        this.position = position;
+        out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+    }
+
+
+    @Override
+    public void write(LTCorpusResult result) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("id", result.getDocumentId());
+        line.put("language", result.getLanguage());
+        if (result.isSuccess()) {
+            line.put("response", result.getResponse());
+            if (!result.getFallbackChunks().isEmpty())
+                line.put("fallback", result.getFallbackChunks().stream().map(chunk -> List.of(chunk.getStart(), chunk.getEnd())).toList());
+        } else
+            line.put("error", result.getError().getMessage() != null ? result.getError().getMessage() : result.getError().toString());
+
+        byte[] bytes = om.writeValueAsBytes(line);
+        out.write(bytes);
+        out.write('\n');
+        position += bytes.length + 1;
+    }
+
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+        channel.force(false);
+    }
+
+
+    /**
+     * Flushes the lines written and returns where they end. A line whose write failed may follow it in the file,
+     * resuming at this position discards it.
+     *
+     * @return the end of the last line written completely
+     */
+    public long getPosition() throws IOException {
+        out.flush();
+        return position;
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            out.flush();
+        }
+    }
+}
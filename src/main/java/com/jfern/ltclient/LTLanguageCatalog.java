@@ -0,0 +1,268 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTLanguage;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The languages supported by the server (GET /v2/languages), loaded on first use and refreshed in the background,
+ * so language codes are checked and normalized without a round trip per request.
+ * <p>
+ * Set on a client with {@link LTClient#setLanguageCatalog(LTLanguageCatalog)}, each request's language is normalized:
+ * "_" becomes "-", codes with a preferred variant are replaced (e.g. en to en-US, spell checking needs a variant),
+ * the case is corrected (en-us to en-US), and codes the server doesn't support are rejected with a
+ * {@link LTUnsupportedLanguageException} before sending the request.
+ * Until the list is loaded (the first request starts loading it) requests are only normalized with the preferred variants.
+ * Example:
+ * <pre>{@code
+ * client.setLanguageCatalog(LTLanguageCatalog.builder()
+ *         .preferredVariant("en", "en-US")
+ *         .preferredVariant("de", "de-DE")
+ *         .preferredVariant("pt", "pt-PT")
+ *         .build());
+ * }</pre>
+ */
+@Slf4j
+public class LTLanguageCatalog implements AutoCloseable {
+
+    public static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofHours(1);
+
+    /**
+     * wait before loading again after a failed load, when there is no list yet
+     */
+    private static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final long refreshNanos;
+    private final Map<String, String> preferredVariants = new HashMap<>();
+    private final boolean validate;
+
+    private volatile Supplier<CompletableFuture<List<LTLanguage>>> loader;
+    private volatile List<LTLanguage> languages;
+    private volatile Map<String, LTLanguage> codes = Map.of();
+    private volatile long nextAttempt = System.nanoTime();
+    private volatile boolean closed;
+
+    private CompletableFuture<List<LTLanguage>> loading;
+    private boolean refreshScheduled;
+
+
+    /**
+     * @param refreshInterval   time between reloads of the list, default {@link #DEFAULT_REFRESH_INTERVAL}
+     * @param preferredVariants codes replaced by a variant, e.g. en to en-US (case insensitive)
+     * @param validate          to reject unsupported codes, default true
+     */
+    @Builder
+    private LTLanguageCatalog(Duration refreshInterval, @Singular Map<String, String> preferredVariants, Boolean validate) {
+        Duration interval = refreshInterval != null ? refreshInterval : DEFAULT_REFRESH_INTERVAL;
+        if (interval.isNegative() || interval.isZero())
+            throw new IllegalArgumentException("refreshInterval must be positive: " + interval);
+
+        this.refreshNanos = interval.toNanos();
+        preferredVariants.forEach((code, variant) -> this.preferredVariants.put(code.replace('_', '-').toLowerCase(Locale.ROOT), variant.replace('_', '-')));
+        this.validate = validate == null || validate;
+    }
+
+
+    /**
+     * @return the supported languages, empty until the list is loaded
+     */
+    public List<LTLanguage> getLanguages() {
+        List<LTLanguage> current = languages;
+        return current != null ? current : List.of();
+    }
+
+
+    public boolean isLoaded() {
+        return languages != null;
+    }
+
+
+    /**
+     * @param code a code (e.g. en) or long code (e.g. en-US), case insensitive
+     * @return the language of the list with that code, empty when unknown or not loaded yet
+     */
+    public Optional<LTLanguage> getLanguage(@NonNull String code) {
+        return Optional.ofNullable(codes.get(code.replace('_', '-').toLowerCase(Locale.ROOT)));
+    }
+
+
+    /**
+     * @return the code to send for the given language code, see {@link LTLanguageCatalog}
+     * @throws LTUnsupportedLanguageException if the list is loaded and doesn't have the language (when validating)
+     */
+    public String normalize(@NonNull String language) {
+        if (language.equalsIgnoreCase("auto"))
+            return language;
+
+        String code = language.replace('_', '-');
+        String variant = preferredVariants.get(code.toLowerCase(Locale.ROOT));
+        if (variant != null)
+            code = variant;
+
+        if (validate && languages == null && System.nanoTime() - nextAttempt >= 0)
+            refresh();
+
+        Map<String, LTLanguage> known = codes;
+        if (known.isEmpty())
+            return code;
+
+        LTLanguage found = known.get(code.toLowerCase(Locale.ROOT));
+        if (found != null)
+            return found.getLongCode() != null && found.getLongCode().equalsIgnoreCase(code) ? found.getLongCode() : found.getCode();
+        if (validate)
+            throw new LTUnsupportedLanguageException(language);
+        return code;
+    }
+
+
+    /**
+     * Stops the background refresh.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+
+    boolean isClosed() {
+        return closed;
+    }
+
+
+    /**
+     * Sets where the list is loaded from, called by the client the catalog is set on.
+     */
+    void bind(Supplier<CompletableFuture<List<LTLanguage>>> loader) {
+        this.loader = loader;
+    }
+
+
+    /**
+     * @return the current list, or the list being loaded when there is none yet
+     */
+    CompletableFuture<List<LTLanguage>> load() {
+        List<LTLanguage> current = languages;
+        return current != null ? CompletableFuture.completedFuture(current) : refresh();
+    }
+
+
+    /**
+     * Loads the list again, unless it is already being loaded.
+     */
+    synchronized CompletableFuture<List<LTLanguage>> refresh() {
+        if (loading != null)
+            return loading;
+
+        Supplier<CompletableFuture<List<LTLanguage>>> source = loader;
+        if (source == null)
+            return CompletableFuture.failedFuture(new IllegalStateException("the catalog is not set on a client"));
+
+        CompletableFuture<List<LTLanguage>> result = new CompletableFuture<>();
+        loading = result;
+
+        CompletableFuture<List<LTLanguage>> loaded;
+        try {
+            loaded = source.get();
+        } catch (RuntimeException e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        loaded.whenComplete((list, throwable) -> onLoaded(result, list, throwable));
+
+        return result;
+    }
+
+
+    private void onLoaded(CompletableFuture<List<LTLanguage>> result, List<LTLanguage> list, Throwable throwable) {
+        throwable = unwrap(throwable);
+
+        if (throwable == null) {
+            Map<String, LTLanguage> index = new HashMap<>();
+            //long codes first: "en" is both the code of all English variants and the long code of English
+            for (LTLanguage language : list) {
+                if (language.getLongCode() != null)
+                    index.put(language.getLongCode().toLowerCase(Locale.ROOT), language);
+            }
+            for (LTLanguage language : list) {
+                if (language.getCode() != null)
+                    index.putIfAbsent(language.getCode().toLowerCase(Locale.ROOT), language);
+            }
+
+            codes = index;
+            languages = List.copyOf(list);
+        } else {
+            log.warn("loading the languages failed", throwable);
+            nextAttempt = System.nanoTime() + Math.min(RETRY_NANOS, refreshNanos);
+        }
+
+        boolean schedule;
+        synchronized (this) {
+            loading = null;
+            schedule = !closed && !refreshScheduled && languages != null;
+            if (schedule)
+                refreshScheduled = true;
+        }
+
+        if (schedule) {
+            CompletableFuture.delayedExecutor(refreshNanos, TimeUnit.NANOSECONDS).execute(() -> {
+                synchronized (this) {
+                    refreshScheduled = false;
+                }
+                if (!closed)
+                    refresh();
+            });
+        }
+
+        if (throwable == null)
+            result.complete(languages);
+        else
+            result.completeExceptionally(throwable);
+    }
+
+
+    private static Throwable unwrap(Throwable throwable) {
+        while ((throwable instanceof CompletionException || throwable instanceof UncheckedIOException) && throwable.getCause() != null)
+            throwable = throwable.getCause();
+
+        return throwable;
+    }
+}
@@ -0,0 +1,83 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTResponse;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.util.List;
+
+/**
+ * Result of {@link LTClient#checkLargeTextResult(String, String, int, int)}: the merged response and the chunks of the
+ * text that were answered by the {@link LTClient#setFallback(LTFallback) fallback} instead of the server.
+ */
+@Builder
+@Getter
+public class LTLargeTextResult {
+
+    private final LTResponse response;
+
+    /**
+     * the chunks answered by the fallback, in text order
+     */
+    @Singular
+    private final List<FallbackChunk> fallbackChunks;
+
+
+    /**
+     * @return some chunks of the text were not checked by the server
+     */
+    public boolean isFallback() {
+        return !fallbackChunks.isEmpty();
+    }
+
+
+    /**
+     * A chunk of the text answered by the fallback, the matches in [start, end) may be missing.
+     */
+    @Builder
+    @Getter
+    public static class FallbackChunk {
+
+        /**
+         * offset of the first char of the chunk in the whole text
+         */
+        private final int start;
+
+        /**
+         * offset after the last char of the chunk
+         */
+        private final int end;
+
+        /**
+         * why the check of the chunk failed
+         */
+        private final Throwable cause;
+    }
+}
@@ -0,0 +1,236 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the node for each request and checks the health of the nodes.
+ * <p>
+ * Routing uses the power of two choices: two random healthy nodes are compared and the one with the lower
+ * {@link LTNode#score(long) score} (outstanding requests times latency) is used.
+ * When there is more than one node, all nodes are probed periodically with a GET to /v2/languages,
+ * which brings ejected nodes back and detects idle nodes that went down.
+ * <p>
+ * With language routing enabled ({@link #setLanguageReplicas(int)}) each language is served by a fixed subset of
+ * nodes chosen by rendezvous hashing, so each server only loads the models of some languages.
+ * If a node of the subset is ejected the next node in the language ranking takes its place.
+ */
+@Slf4j
+class LTLoadBalancer implements AutoCloseable {
+
+    static final Duration PROBE_INTERVAL = Duration.ofSeconds(5);
+    static final Duration PROBE_TIMEOUT = Duration.ofSeconds(5);
+
+    private final List<LTNode> nodes;
+    private final ScheduledExecutorService prober;
+
+    private volatile int languageReplicas;
+
+
+    LTLoadBalancer(List<String> urls, HttpClient httpClient) {
+        if (urls.isEmpty())
+            throw new IllegalArgumentException("at least one server URL is required");
+
+        this.nodes = urls.stream().map(LTNode::new).toList();
+
+        if (nodes.size() > 1) {
+            prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "LTClient-health-probe");
+                thread.setDaemon(true);
+                return thread;
+            });
+            prober.scheduleWithFixedDelay(() -> probe(httpClient), PROBE_INTERVAL.toMillis(), PROBE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            prober = null;
+        }
+    }
+
+
+    List<LTNode> getNodes() {
+        return nodes;
+    }
+
+
+    /**
+     * @param languageReplicas number of nodes that serve each language, 0 to disable language routing
+     */
+    void setLanguageReplicas(int languageReplicas) {
+        if (languageReplicas < 0)
+            throw new IllegalArgumentException("languageReplicas must not be negative: " + languageReplicas);
+
+        this.languageReplicas = languageReplicas;
+    }
+
+
+    int getLanguageReplicas() {
+        return languageReplicas;
+    }
+
+
+    /**
+     * @param language the language of the request, with language routing "auto" or null may use any node
+     * @param exclude  node that should not be used if there are others available (may be null)
+     * @return the node for the next request
+     */
+    LTNode select(String language, LTNode exclude) {
+        int replicas = languageReplicas;
+
+        if (replicas == 0 || replicas >= nodes.size() || language == null || language.equalsIgnoreCase("auto"))
+            return select(nodes, exclude);
+
+        return select(languageNodes(language.toLowerCase(Locale.ROOT), replicas), exclude);
+    }
+
+
+    /**
+     * Ranks the nodes by a hash of the language and node URL and takes the first healthy ones.
+     * The ranking only changes for the language when nodes are added or removed, so the subset is stable.
+     */
+    List<LTNode> languageNodes(String language, int replicas) {
+        long languageHash = language.hashCode();
+
+        List<LTNode> ranked = new ArrayList<>(nodes);
+        ranked.sort(Comparator.comparingLong((LTNode node) -> mix(languageHash * 31 + node.getUrl().hashCode())).reversed());
+
+        List<LTNode> selected = new ArrayList<>(replicas);
+        for (LTNode node : ranked) {
+            if (node.isHealthy())
+                selected.add(node);
+            if (selected.size() == replicas)
+                return selected;
+        }
+
+        return selected.isEmpty() ? ranked.subList(0, replicas) : selected;
+    }
+
+
+    /**
+     * Selects one of the candidates, preferring healthy nodes. If all candidates are ejected the one that will be
+     * probed first is used, so requests are never refused by the client.
+     * When exclude is the only candidate (e.g. a language served by one replica), the other nodes are used instead.
+     */
+    LTNode select(List<LTNode> candidates, LTNode exclude) {
+        if (exclude != null && nodes.size() > 1 && candidates.stream().allMatch(node -> node == exclude))
+            candidates = nodes;
+
+        if (candidates.size() == 1)
+            return candidates.get(0);
+
+        long now = System.nanoTime();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        LTNode first = null;
+        LTNode second = null;
+        int seen = 0;
+
+        //reservoir sampling of two healthy nodes
+        for (LTNode node : candidates) {
+            if (node == exclude || !node.isHealthy())
+                continue;
+
+            seen++;
+            if (seen == 1) {
+                first = node;
+            } else if (seen == 2) {
+                second = node;
+            } else {
+                int slot = random.nextInt(seen);
+                if (slot == 0)
+                    first = node;
+                else if (slot == 1)
+                    second = node;
+            }
+        }
+
+        if (first == null)
+            return candidates.stream()
+                    .filter(node -> node != exclude)
+                    .min((a, b) -> Long.compare(a.getEjectedUntil() - now, b.getEjectedUntil() - now))
+                    .orElse(candidates.get(0));
+
+        if (second == null)
+            return first;
+
+        return first.score(now) <= second.score(now) ? first : second;
+    }
+
+
+    /**
+     * 64 bit finalizer from MurmurHash3, spreads the combined hash so the ranking is uniform.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+
+    private void probe(HttpClient httpClient) {
+        for (LTNode node : nodes) {
+            if (!node.isHealthy() && !node.isProbeDue(System.nanoTime()))
+                continue;
+
+            HttpRequest request = HttpRequest.newBuilder(URI.create(node.getUrl() + "/v2/languages"))
+                    .timeout(PROBE_TIMEOUT)
+                    .GET()
+                    .build();
+
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, throwable) -> {
+                        boolean success = throwable == null && response.statusCode() < 500;
+                        if (!success)
+                            log.warn("health probe failed for " + node.getUrl());
+                        node.onProbe(success);
+                    });
+        }
+    }
+
+
+    @Override
+    public void close() {
+        if (prober != null)
+            prober.shutdownNow();
+    }
+}
@@ -0,0 +1,394 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTMatch;
+import com.jfern.ltclient.POJO.LTResponse;
+import com.jfern.ltclient.POJO.LTRule;
+import lombok.Builder;
+import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Columnar store of the matches of many documents, for analytics over large corpora.
+ * <p>
+ * Each match takes one row of six int columns (document, offset, length, rule, category, issue type): the strings are
+ * dictionary encoded, each distinct document id, rule id, category id and issue type is kept once.
+ * That is 24 bytes per match instead of the LTMatch objects, and group by and filters are sequential scans of int arrays.
+ * The columns are on the heap, or off-heap (direct buffers) so millions of matches don't weigh on the garbage collector.
+ * <p>
+ * Rows are appended, never removed. Adding and reading from several threads is safe.
+ * Example:
+ * <pre>{@code
+ * LTMatchTable table = LTMatchTable.builder().offHeap(true).build();
+ * table.add("doc-1", client.check("en-US", text));
+ * ...
+ * Map<String, Long> typos = table.countByRule(table.selectByIssueType("misspelling"));
+ * }</pre>
+ */
+public class LTMatchTable {
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+    /**
+     * rows of the columns: int arrays are limited by the VM, direct buffers by their size in bytes
+     */
+    static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    static final int MAX_OFF_HEAP_CAPACITY = Integer.MAX_VALUE / Integer.BYTES;
+
+    private static final int DOCUMENT = 0;
+    private static final int OFFSET = 1;
+    private static final int LENGTH = 2;
+    private static final int RULE = 3;
+    private static final int CATEGORY = 4;
+    private static final int ISSUE_TYPE = 5;
+    private static final int COLUMNS = 6;
+
+    private final boolean offHeap;
+    private final IntBuffer[] columns = new IntBuffer[COLUMNS];
+
+    private final Dictionary documents = new Dictionary();
+    private final Dictionary rules = new Dictionary();
+    private final Dictionary categories = new Dictionary();
+    private final Dictionary issueTypes = new Dictionary();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int size;
+
+
+    /**
+     * @param initialCapacity rows allocated up front, the columns double when full, default {@value #DEFAULT_INITIAL_CAPACITY}
+     * @param offHeap         to keep the columns in direct buffers instead of int arrays, default false
+     */
+    @Builder
+    private LTMatchTable(Integer initialCapacity, boolean offHeap) {
+        int capacity = initialCapacity != null ? initialCapacity : DEFAULT_INITIAL_CAPACITY;
+        if (capacity <= 0)
+            throw new IllegalArgumentException("initialCapacity <= 0");
+        if (capacity > (offHeap ? MAX_OFF_HEAP_CAPACITY : MAX_CAPACITY))
+            throw new IllegalArgumentException("initialCapacity too large: " + capacity);
+
+        this.offHeap = offHeap;
+        for (int i = 0; i < COLUMNS; i++)
+            columns[i] = allocate(capacity);
+    }
+
+
+    /**
+     * Adds the matches of a response.
+     *
+     * @param documentId identifies the checked document in the results (e.g. its path)
+     * @return the number of rows added
+     */
+    public int add(@NonNull String documentId, @NonNull LTResponse response) {
+        return response.getMatches() == null ? 0 : add(documentId, response.getMatches());
+    }
+
+
+    /**
+     * Adds matches, e.g. those collected by {@link LTClient#checkStreaming}.
+     *
+     * @param documentId identifies the checked document in the results (e.g. its path)
+     * @return the number of rows added
+     * @throws IllegalStateException if the table can't grow to hold the matches
+     */
+    public int add(@NonNull String documentId, @NonNull Collection<LTMatch> matches) {
+        lock.writeLock().lock();
+        try {
+            ensureCapacity((long) size + matches.size());
+
+            int document = documents.encode(documentId);
+            for (LTMatch match : matches) {
+                LTRule rule = match.getRule();
+                columns[DOCUMENT].put(size, document);
+                columns[OFFSET].put(size, match.getOffset());
+                columns[LENGTH].put(size, match.getLength());
+                columns[RULE].put(size, rules.encode(rule == null ? null : rule.getId()));
+                columns[CATEGORY].put(size, categories.encode(rule == null || rule.getCategory() == null ? null : rule.getCategory().getId()));
+                columns[ISSUE_TYPE].put(size, issueTypes.encode(rule == null ? null : rule.getIssueType()));
+                size++;
+            }
+            return matches.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * @return the number of rows (matches)
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * @return the number of distinct documents added
+     */
+    public int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    public String getDocument(int row) {
+        return decode(row, DOCUMENT, documents);
+    }
+
+
+    public int getOffset(int row) {
+        return get(row, OFFSET);
+    }
+
+
+    public int getLength(int row) {
+        return get(row, LENGTH);
+    }
+
+
+    public String getRuleId(int row) {
+        return decode(row, RULE, rules);
+    }
+
+
+    public String getCategoryId(int row) {
+        return decode(row, CATEGORY, categories);
+    }
+
+
+    public String getIssueType(int row) {
+        return decode(row, ISSUE_TYPE, issueTypes);
+    }
+
+
+    /**
+     * @return the rows with the given issue type (e.g. "misspelling"), in insertion order
+     */
+    public int[] selectByIssueType(String issueType) {
+        lock.readLock().lock();
+        try {
+            Integer found = issueTypes.find(issueType);
+            if (found == null)
+                return new int[0];
+
+            int code = found;
+            IntBuffer column = columns[ISSUE_TYPE];
+            int[] rows = new int[64];
+            int count = 0;
+            for (int row = 0; row < size; row++) {
+                if (column.get(row) == code) {
+                    if (count == rows.length)
+                        rows = Arrays.copyOf(rows, count * 2);
+                    rows[count++] = row;
+                }
+            }
+            return Arrays.copyOf(rows, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * @return the number of matches of each rule id, most frequent first
+     */
+    public Map<String, Long> countByRule() {
+        return count(RULE, rules, null);
+    }
+
+
+    /**
+     * @param rows rows to count, e.g. from {@link #selectByIssueType(String)}
+     * @return the number of matches of each rule id among the rows, most frequent first
+     */
+    public Map<String, Long> countByRule(@NonNull int[] rows) {
+        return count(RULE, rules, rows);
+    }
+
+
+    /**
+     * @return the number of matches of each category id, most frequent first
+     */
+    public Map<String, Long> countByCategory() {
+        return count(CATEGORY, categories, null);
+    }
+
+
+    /**
+     * @param rows rows to count, e.g. from {@link #selectByIssueType(String)}
+     * @return the number of matches of each category id among the rows, most frequent first
+     */
+    public Map<String, Long> countByCategory(@NonNull int[] rows) {
+        return count(CATEGORY, categories, rows);
+    }
+
+
+    /**
+     * @return the number of matches of each issue type, most frequent first
+     */
+    public Map<String, Long> countByIssueType() {
+        return count(ISSUE_TYPE, issueTypes, null);
+    }
+
+
+    private Map<String, Long> count(int column, Dictionary dictionary, int[] rows) {
+        lock.readLock().lock();
+        try {
+            IntBuffer values = columns[column];
+            //dictionary codes are dense, one counter per code, null values have the code -1
+            long[] counts = new long[dictionary.size() + 1];
+            if (rows == null) {
+                for (int row = 0; row < size; row++)
+                    counts[values.get(row) + 1]++;
+            } else {
+                for (int row : rows) {
+                    Objects.checkIndex(row, size);
+                    counts[values.get(row) + 1]++;
+                }
+            }
+
+            List<Integer> codes = new ArrayList<>();
+            for (int code = -1; code < dictionary.size(); code++) {
+                if (counts[code + 1] > 0)
+                    codes.add(code);
+            }
+            codes.sort(Comparator.comparingLong((Integer code) -> counts[code + 1]).reversed());
+
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (int code : codes)
+                result.put(dictionary.decode(code), counts[code + 1]);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    private int get(int row, int column) {
+        lock.readLock().lock();
+        try {
+            return columns[column].get(Objects.checkIndex(row, size));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    private String decode(int row, int column, Dictionary dictionary) {
+        lock.readLock().lock();
+        try {
+            return dictionary.decode(columns[column].get(Objects.checkIndex(row, size)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    private void ensureCapacity(long capacity) {
+        int current = columns[0].capacity();
+        if (capacity <= current)
+            return;
+
+        int maxCapacity = offHeap ? MAX_OFF_HEAP_CAPACITY : MAX_CAPACITY;
+        if (capacity > maxCapacity)
+            throw new IllegalStateException("table full: " + maxCapacity + " rows");
+
+        int newCapacity = (int) Math.min(maxCapacity, Math.max(capacity, current * 2L));
+
+        for (int i = 0; i < COLUMNS; i++) {
+            IntBuffer column = allocate(newCapacity);
+            column.put(columns[i].duplicate().position(0).limit(size));
+            columns[i] = column;
+        }
+    }
+
+
+    private IntBuffer allocate(int capacity) {
+        if (offHeap)
+            return ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        return IntBuffer.wrap(new int[capacity]);
+    }
+
+
+    /**
+     * Dense codes of distinct strings, null has the code -1.
+     */
+    private static class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            if (value == null)
+                return -1;
+
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        Integer find(String value) {
+            return value == null ? Integer.valueOf(-1) : codes.get(value);
+        }
+
+        String decode(int code) {
+            return code < 0 ? null : values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A LanguageTool server used by the client, with the statistics used to route requests to it.
+ * <p>
+ * A node is ejected after {@link #FAILURES_TO_EJECT} consecutive failures (connection errors, timeouts or 5xx responses)
+ * and stays out for an ejection time. After that time an active probe decides if it comes back; when it does, its share
+ * of traffic ramps up during {@link #WARMUP_NANOS}. When the probe (or a request sent once the ejection time has passed)
+ * fails, the node is ejected again for twice the time. Failures during the ejection time (e.g. of the requests in flight
+ * when it was ejected) don't extend it.
+ */
+public class LTNode {
+
+    static final int FAILURES_TO_EJECT = 3;
+    static final long BASE_EJECTION_NANOS = TimeUnit.SECONDS.toNanos(10);
+    static final long MAX_EJECTION_NANOS = TimeUnit.MINUTES.toNanos(5);
+    static final long WARMUP_NANOS = TimeUnit.SECONDS.toNanos(30);
+    static final double MIN_WARMUP_WEIGHT = 0.1;
+
+    private static final double EWMA_ALPHA = 0.2;
+
+    /**
+     * base URL of the server, like "http://10.30.10.30:8010"
+     */
+    @Getter
+    private final String url;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private double latencyNanos;
+    private int consecutiveFailures;
+    private int consecutiveEjections;
+    private boolean ejected;
+    private long ejectedUntil;
+    private long readmittedAt = System.nanoTime() - WARMUP_NANOS;
+
+
+    LTNode(String url) {
+        this.url = url;
+    }
+
+
+    /**
+     * @return requests sent to this node that didn't complete yet
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+
+    /**
+     * @return exponentially weighted moving average of the request latency, in milliseconds
+     */
+    public synchronized double getLatencyMillis() {
+        return latencyNanos / 1_000_000;
+    }
+
+
+    public synchronized boolean isHealthy() {
+        return !ejected;
+    }
+
+
+    void onStart() {
+        outstanding.incrementAndGet();
+    }
+
+
+    synchronized void onSuccess(long latency) {
+        outstanding.decrementAndGet();
+        latencyNanos = latencyNanos == 0 ? latency : latencyNanos + EWMA_ALPHA * (latency - latencyNanos);
+        consecutiveFailures = 0;
+    }
+
+
+    synchronized void onFailure() {
+        outstanding.decrementAndGet();
+        recordFailure(System.nanoTime());
+    }
+
+
+    /**
+     * Completion that says nothing about the node health (e.g. the request was cancelled).
+     */
+    void onIgnore() {
+        outstanding.decrementAndGet();
+    }
+
+
+    void onProbe(boolean success) {
+        onProbe(success, System.nanoTime());
+    }
+
+
+    synchronized void onProbe(boolean success, long now) {
+        if (success) {
+            consecutiveFailures = 0;
+            if (ejected) {
+                ejected = false;
+                readmittedAt = now;
+            }
+            consecutiveEjections = 0;
+        } else {
+            recordFailure(now);
+        }
+    }
+
+
+    /**
+     * @return true if the node is ejected and its ejection time has passed, so it should be probed
+     */
+    synchronized boolean isProbeDue(long now) {
+        return ejected && now - ejectedUntil >= 0;
+    }
+
+
+    synchronized long getEjectedUntil() {
+        return ejectedUntil;
+    }
+
+
+    /**
+     * Routing score, lower is better: outstanding requests times latency, divided by the warmup weight.
+     */
+    synchronized double score(long now) {
+        double latency = latencyNanos == 0 ? 1 : latencyNanos;
+        return (outstanding.get() + 1) * latency / weight(now);
+    }
+
+
+    private double weight(long now) {
+        long sinceReadmission = now - readmittedAt;
+        if (sinceReadmission >= WARMUP_NANOS)
+            return 1;
+
+        return MIN_WARMUP_WEIGHT + (1 - MIN_WARMUP_WEIGHT) * sinceReadmission / WARMUP_NANOS;
+    }
+
+
+    private void recordFailure(long now) {
+        consecutiveFailures++;
+
+        if (ejected) {
+            // only a failed readmission attempt escalates, not the failures while the node was out
+            if (now - ejectedUntil >= 0) {
+                consecutiveEjections++;
+                ejectedUntil = now + ejectionTime();
+            }
+        } else if (consecutiveFailures >= FAILURES_TO_EJECT) {
+            ejected = true;
+            consecutiveEjections++;
+            ejectedUntil = now + ejectionTime();
+        }
+    }
+
+
+    private long ejectionTime() {
+        int doublings = Math.min(consecutiveEjections - 1, 16);
+        return Math.min(MAX_EJECTION_NANOS, BASE_EJECTION_NANOS << Math.max(0, doublings));
+    }
+}
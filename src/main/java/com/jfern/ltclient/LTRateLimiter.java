@@ -0,0 +1,170 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Client side budget for the premium API quotas, so requests stay under the limits instead of being rejected by the server.
+ * Each API key gets two token buckets, one for requests per minute and one for characters per minute,
+ * that refill continuously and hold at most one minute of quota.
+ * Requests without an API key share one budget.
+ * <p>
+ * With {@link Mode#QUEUE} a request over the budget reserves its tokens and is delayed until they are refilled,
+ * so waiting requests are served in arrival order. With {@link Mode#FAIL_FAST} it fails with a {@link LTQuotaExceededException}
+ * and nothing is consumed.
+ * <p>
+ * A request with more characters than the characters per minute can't ever fit the budget, in both modes it fails with a
+ * {@link LTRequestTooLargeException} and nothing is consumed.
+ * <p>
+ * Example, for the 20 requests and 75000 characters per minute of the free API:
+ * <pre>{@code
+ * client.setRateLimiter(new LTRateLimiter(20, 75_000, LTRateLimiter.Mode.QUEUE));
+ * }</pre>
+ */
+public class LTRateLimiter {
+
+    public enum Mode {
+        /**
+         * delay the requests over the budget until it is refilled
+         */
+        QUEUE,
+        /**
+         * reject the requests over the budget with a {@link LTQuotaExceededException}
+         */
+        FAIL_FAST
+    }
+
+    private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    @Getter
+    private final long requestsPerMinute;
+    @Getter
+    private final long charactersPerMinute;
+    @Getter
+    private final Mode mode;
+
+    private final LongSupplier clock;
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+
+    /**
+     * @param requestsPerMinute   max requests per minute and API key, 0 for no limit
+     * @param charactersPerMinute max characters per minute and API key, 0 for no limit
+     * @param mode                what to do with the requests over the budget
+     */
+    public LTRateLimiter(long requestsPerMinute, long charactersPerMinute, @NonNull Mode mode) {
+        this(requestsPerMinute, charactersPerMinute, mode, System::nanoTime);
+    }
+
+
+    LTRateLimiter(long requestsPerMinute, long charactersPerMinute, @NonNull Mode mode, @NonNull LongSupplier clock) {
+        if (requestsPerMinute < 0 || charactersPerMinute < 0)
+            throw new IllegalArgumentException("invalid limits: requests=" + requestsPerMinute + " characters=" + charactersPerMinute);
+
+        this.requestsPerMinute = requestsPerMinute;
+        this.charactersPerMinute = charactersPerMinute;
+        this.mode = mode;
+        this.clock = clock;
+    }
+
+
+    /**
+     * Takes the budget of one request.
+     *
+     * @param apiKey     the API key of the request, or null
+     * @param characters characters sent in the request
+     * @return nanoseconds the request must wait before being sent, 0 to send it now
+     * @throws LTQuotaExceededException   in {@link Mode#FAIL_FAST} mode if the budget is exhausted
+     * @throws LTRequestTooLargeException if the request has more characters than the characters per minute
+     */
+    public long reserve(String apiKey, long characters) throws LTQuotaExceededException, LTRequestTooLargeException {
+        if (requestsPerMinute == 0 && charactersPerMinute == 0)
+            return 0;
+        if (charactersPerMinute > 0 && characters > charactersPerMinute)
+            throw new LTRequestTooLargeException(characters, charactersPerMinute);
+
+        return budgets.computeIfAbsent(apiKey == null ? "" : apiKey, key -> new Budget(clock.getAsLong()))
+                .reserve(Math.max(0, characters), clock.getAsLong());
+    }
+
+
+    /**
+     * Forgets the budgets of all the API keys, they start again with a full minute of quota.
+     */
+    public void reset() {
+        budgets.clear();
+    }
+
+
+    private class Budget {
+
+        private double requests = requestsPerMinute;
+        private double characters = charactersPerMinute;
+        private long refilled;
+
+        Budget(long now) {
+            this.refilled = now;
+        }
+
+        synchronized long reserve(long requestCharacters, long now) throws LTQuotaExceededException {
+            long elapsed = now - refilled;
+            if (elapsed > 0) {
+                requests = Math.min(requestsPerMinute, requests + (double) elapsed * requestsPerMinute / MINUTE_NANOS);
+                characters = Math.min(charactersPerMinute, characters + (double) elapsed * charactersPerMinute / MINUTE_NANOS);
+                refilled = now;
+            }
+
+            long wait = Math.max(waitNanos(requests, 1, requestsPerMinute), waitNanos(characters, requestCharacters, charactersPerMinute));
+
+            if (wait > 0 && mode == Mode.FAIL_FAST)
+                throw new LTQuotaExceededException(Duration.ofNanos(wait));
+
+            //in queue mode the tokens go negative, the debt delays the following requests
+            if (requestsPerMinute > 0)
+                requests -= 1;
+            if (charactersPerMinute > 0)
+                characters -= requestCharacters;
+
+            return wait;
+        }
+
+        private long waitNanos(double available, long needed, long perMinute) {
+            if (perMinute == 0 || available >= needed)
+                return 0;
+
+            return (long) Math.ceil((needed - available) * MINUTE_NANOS / perMinute);
+        }
+    }
+}
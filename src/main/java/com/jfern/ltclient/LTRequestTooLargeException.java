@@ -0,0 +1,57 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import lombok.Getter;
+
+import java.net.ConnectException;
+
+/**
+ * Thrown by the client, without calling the server, when a request has more characters than the
+ * {@link LTRateLimiter#getCharactersPerMinute() characters per minute} of the {@link LTRateLimiter}, so it would never
+ * fit the budget. It is not retried, split the text (e.g. with {@link LTClient#checkLargeText(String, String, int, int)}).
+ * Extends {@link ConnectException} like {@link LTServerException}.
+ */
+@Getter
+public class LTRequestTooLargeException extends ConnectException {
+
+    /**
+     * characters of the request
+     */
+    private final long characters;
+
+    /**
+     * characters per minute of the budget
+     */
+    private final long limit;
+
+    public LTRequestTooLargeException(long characters, long limit) {
+        super("request of " + characters + " characters exceeds the budget of " + limit + " characters per minute");
+        this.characters = characters;
+        this.limit = limit;
+    }
+}
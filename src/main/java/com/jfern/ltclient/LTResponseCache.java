@@ -0,0 +1,195 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTResponse;
+import lombok.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In memory cache of parsed check responses, keyed by a SHA-256 hash of the encoded request (text and all parameters).
+ * <p>
+ * The cache is bounded by weight, each entry weighs 1 plus its number of matches (matches are most of the retained memory).
+ * When full, the least recently used entries are evicted. Entries also expire after the configured time to live.
+ * <p>
+ * Cached responses are shared by all callers that hit the same entry, they should not be modified.
+ */
+public class LTResponseCache {
+
+    private final long maxWeight;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+
+    /**
+     * @param maxWeight max total weight of the cached entries (an entry weighs 1 plus its number of matches)
+     * @param ttl       time an entry stays valid after being stored
+     */
+    public LTResponseCache(long maxWeight, @NonNull Duration ttl) {
+        if (maxWeight < 1)
+            throw new IllegalArgumentException("maxWeight must be positive: " + maxWeight);
+
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+
+    /**
+     * Hashes the encoded request body.
+     *
+     * @param formData the x-www-form-urlencoded body sent to /v2/check
+     * @return the cache key for that request
+     */
+    public static String key(String formData) {
+        return key(formData.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * Hashes the encoded request body.
+     *
+     * @param formData the x-www-form-urlencoded body sent to /v2/check, as UTF-8 bytes
+     * @return the cache key for that request
+     */
+    public static String key(byte[] formData) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(formData));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+
+    /**
+     * @return the cached response or null if not present or expired
+     */
+    public synchronized LTResponse get(String key) {
+        Entry entry = entries.get(key);
+
+        if (entry != null && entry.expiresAt - System.nanoTime() < 0) {
+            remove(key, entry);
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return entry.response;
+    }
+
+
+    public synchronized void put(String key, @NonNull LTResponse response) {
+        long entryWeight = 1 + (response.getMatches() == null ? 0 : response.getMatches().size());
+        if (entryWeight > maxWeight)
+            return;
+
+        Entry previous = entries.put(key, new Entry(response, entryWeight, System.nanoTime() + ttlNanos));
+        if (previous != null)
+            weight -= previous.weight;
+        weight += entryWeight;
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            weight -= evicted.weight;
+            evictions++;
+        }
+    }
+
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+
+    /**
+     * @return number of entries removed because the cache was full or they expired
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        weight -= entry.weight;
+        evictions++;
+    }
+
+
+    private static class Entry {
+        final LTResponse response;
+        final long weight;
+        final long expiresAt;
+
+        Entry(LTResponse response, long weight, long expiresAt) {
+            this.response = response;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,562 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jfern.ltclient.POJO.LTResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Persistent, append only store of check responses, so results survive restarts of the application.
+ * <p>
+ * Responses are stored as deflated JSON in memory mapped segment files of fixed capacity, an in memory index
+ * (rebuilt on {@link #open(Path)} by scanning the segments) maps each request hash to its record.
+ * Storing a key again appends a new record, the old one is only reclaimed by {@link #compact()}.
+ * Every record has a checksum, a segment is truncated at the first damaged record when it's loaded
+ * (e.g. one partially written when the process died).
+ * <p>
+ * Every record keeps the {@link com.jfern.ltclient.POJO.LTSoftware#getVersion() server version} that produced it,
+ * {@link #retainVersion(String)} drops the records of other versions (e.g. after a server upgrade).
+ * <p>
+ * Data is flushed to disk by the OS, {@link #flush()} and {@link #close()} force it.
+ */
+@Slf4j
+public class LTResultStore implements Closeable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".ltr";
+    private static final String VERSION_FILE = "version";
+    private static final String FIRST_SEGMENT_FILE = "first-segment";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ObjectMapper om;
+
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile String version;
+    private boolean closed;
+
+
+    private LTResultStore(Path directory, int segmentSize, LTRuleRegistry ruleRegistry) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.om = LTRuleRegistry.mapper(ruleRegistry);
+    }
+
+
+    /**
+     * Opens (or creates) a store with the default segment size ({@value #DEFAULT_SEGMENT_SIZE} bytes).
+     */
+    public static LTResultStore open(@NonNull Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+
+    /**
+     * Opens (or creates) a store in the given directory, indexing all the records already there.
+     *
+     * @param directory   where the segment files are kept
+     * @param segmentSize capacity of each segment file, responses bigger than this are not stored
+     */
+    public static LTResultStore open(@NonNull Path directory, int segmentSize) throws IOException {
+        return open(directory, segmentSize, LTRuleRegistry.getDefault());
+    }
+
+
+    /**
+     * Same as {@link #open(Path, int)}, the rules of the responses read are shared through the given registry.
+     *
+     * @param ruleRegistry registry of the rules, or null not to share them
+     */
+    public static LTResultStore open(@NonNull Path directory, int segmentSize, LTRuleRegistry ruleRegistry) throws IOException {
+        Files.createDirectories(directory);
+
+        LTResultStore store = new LTResultStore(directory, segmentSize, ruleRegistry);
+
+        Path versionFile = directory.resolve(VERSION_FILE);
+        if (Files.exists(versionFile))
+            store.version = Files.readString(versionFile, StandardCharsets.UTF_8);
+
+        long firstSegment = readFirstSegment(directory.resolve(FIRST_SEGMENT_FILE));
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted((a, b) -> Long.compare(segmentNumber(a), segmentNumber(b)))
+                    .toList();
+        }
+
+        for (Path file : files) {
+            if (segmentNumber(file) < firstSegment)
+                deleteSegment(file);
+            else
+                store.load(file);
+        }
+
+        return store;
+    }
+
+
+    /**
+     * @param key the request hash, see {@link LTResponseCache#key(String)}
+     * @return the stored response, or null if not present or stored by another server version
+     */
+    public LTResponse get(String key) throws IOException {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            Location location = index.get(key);
+            if (location == null || !isCurrent(location.version))
+                return null;
+
+            ByteBuffer record = location.segment.buffer.duplicate();
+            record.position(location.payloadOffset).limit(location.payloadOffset + location.payloadLength);
+
+            return om.readValue(inflate(record, location.rawLength), LTResponse.class);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Appends the response to the store.
+     *
+     * @param key the request hash, see {@link LTResponseCache#key(String)}
+     */
+    public void put(String key, @NonNull LTResponse response) throws IOException {
+        byte[] raw = om.writeValueAsBytes(response);
+        byte[] payload = deflate(raw);
+        String responseVersion = response.getSoftware() == null ? null : response.getSoftware().getVersion();
+
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            append(key, responseVersion, raw.length, payload);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Keeps only the records stored by the given server version, the others are ignored from now on
+     * (and removed by the next {@link #compact()}). The version is persisted, so it's kept when the store is reopened.
+     *
+     * @param serverVersion the version of the server currently in use
+     */
+    public void retainVersion(@NonNull String serverVersion) throws IOException {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            if (serverVersion.equals(version))
+                return;
+
+            version = serverVersion;
+            writeAtomically(directory.resolve(VERSION_FILE), serverVersion);
+            index.values().removeIf(location -> !isCurrent(location.version));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Rewrites the live records into new segments and deletes the old segment files,
+     * reclaiming the space of overwritten and invalidated records.
+     * <p>
+     * The old files stay mapped until their buffers are garbage collected, on systems that can't delete mapped files
+     * (e.g. Windows) they are deleted by the next {@link #open(Path)} instead.
+     */
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            List<Segment> old = new ArrayList<>(segments);
+            Map<String, Location> live = Map.copyOf(index);
+            long firstSegment = segmentNumber(old.isEmpty() ? null : old.get(old.size() - 1).path) + 1;
+
+            segments.clear();
+            segments.add(createSegment(firstSegment));
+            index.clear();
+
+            for (Map.Entry<String, Location> entry : live.entrySet()) {
+                Location location = entry.getValue();
+                byte[] payload = new byte[location.payloadLength];
+                location.segment.buffer.get(location.payloadOffset, payload);
+                append(entry.getKey(), location.version, location.rawLength, payload);
+            }
+
+            // the new segments are complete, from here on open() ignores the old ones
+            segments.forEach(segment -> segment.buffer.force());
+            writeAtomically(directory.resolve(FIRST_SEGMENT_FILE), Long.toString(firstSegment));
+
+            for (Segment segment : old) {
+                segment.buffer.force();
+                segment.channel.close();
+                deleteSegment(segment.path);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    public String getVersion() {
+        return version;
+    }
+
+
+    /**
+     * @return number of indexed responses
+     */
+    public int size() {
+        return index.size();
+    }
+
+
+    /**
+     * Forces the segments content to disk.
+     */
+    public void flush() {
+        lock.readLock().lock();
+        try {
+            segments.forEach(segment -> segment.buffer.force());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Closes the segment files, the store can't be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed)
+                return;
+
+            closed = true;
+            for (Segment segment : segments) {
+                segment.buffer.force();
+                segment.channel.close();
+            }
+            segments.clear();
+            index.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    private void ensureOpen() {
+        if (closed)
+            throw new IllegalStateException("result store is closed");
+    }
+
+
+    /**
+     * @return the number of the first segment written by the last {@link #compact()}, 0 if there is none or the file
+     * can't be parsed (all the segments are then loaded)
+     */
+    private static long readFirstSegment(Path file) throws IOException {
+        if (!Files.exists(file))
+            return 0;
+
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        try {
+            return Long.parseLong(content.trim());
+        } catch (NumberFormatException e) {
+            log.warn("ignoring {}, unparsable content: {}", file, content);
+            return 0;
+        }
+    }
+
+
+    /**
+     * Writes a temporary file, forces it to disk and renames it over the target, so a crash leaves either the old or
+     * the new content.
+     */
+    private static void writeAtomically(Path file, String content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+
+    /**
+     * Record layout: length of the rest of the record, CRC-32 of what follows it, key, version, raw (inflated) length,
+     * deflated payload. Strings are stored as length followed by UTF-8 bytes, a null version has length -1.
+     */
+    private void append(String key, String recordVersion, int rawLength, byte[] payload) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] versionBytes = recordVersion == null ? null : recordVersion.getBytes(StandardCharsets.UTF_8);
+
+        int length = 4 + 4 + keyBytes.length + 4 + (versionBytes == null ? 0 : versionBytes.length) + 4 + payload.length;
+        if (4 + length > segmentSize) {
+            log.warn("response too large for the result store: " + length + " bytes");
+            return;
+        }
+
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.writePosition + 4 + length > segmentSize) {
+            segment = createSegment(segment == null ? 0 : segmentNumber(segment.path) + 1);
+            segments.add(segment);
+        }
+
+        ByteBuffer buffer = segment.buffer.duplicate();
+        int start = segment.writePosition;
+        buffer.position(start + 8);
+        buffer.putInt(keyBytes.length).put(keyBytes);
+        if (versionBytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(versionBytes.length).put(versionBytes);
+        }
+        buffer.putInt(rawLength);
+        int payloadOffset = buffer.position();
+        buffer.put(payload);
+
+        buffer.putInt(start, length);
+        buffer.putInt(start + 4, checksum(buffer, start + 8, start + 4 + length));
+        segment.writePosition = buffer.position();
+
+        if (isCurrent(recordVersion))
+            index.put(key, new Location(segment, payloadOffset, payload.length, rawLength, recordVersion));
+    }
+
+
+    private void load(Path file) throws IOException {
+        Segment segment = mapSegment(file, Math.max(segmentSize, Files.size(file)));
+        segments.add(segment);
+
+        ByteBuffer buffer = segment.buffer.duplicate();
+        while (buffer.remaining() >= 4) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length == 0) {
+                buffer.position(start);
+                break;
+            }
+
+            if (length < 16 || length > buffer.remaining() || buffer.getInt() != checksum(buffer, start + 8, start + 4 + length)) {
+                log.warn("damaged record in " + file + " at " + start + ", dropping the rest of the segment");
+                buffer.position(start);
+                truncate(segment, start);
+                break;
+            }
+
+            String key = readString(buffer);
+            String recordVersion = readString(buffer);
+            int rawLength = buffer.getInt();
+            int payloadOffset = buffer.position();
+            int payloadLength = start + 4 + length - payloadOffset;
+            buffer.position(payloadOffset + payloadLength);
+
+            if (isCurrent(recordVersion))
+                index.put(key, new Location(segment, payloadOffset, payloadLength, rawLength, recordVersion));
+        }
+        segment.writePosition = buffer.position();
+    }
+
+
+    /**
+     * Clears the segment from the given position, so records after a damaged one are never read again.
+     */
+    private static void truncate(Segment segment, int position) {
+        MappedByteBuffer buffer = segment.buffer;
+        byte[] zeros = new byte[64 * 1024];
+        for (int i = position; i < buffer.limit(); i += zeros.length)
+            buffer.put(i, zeros, 0, Math.min(zeros.length, buffer.limit() - i));
+        buffer.force();
+    }
+
+
+    private static int checksum(ByteBuffer buffer, int from, int to) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(to).position(from));
+        return (int) crc.getValue();
+    }
+
+
+    private static void deleteSegment(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("can't delete " + file + " yet, it's deleted the next time the store is opened", e);
+        }
+    }
+
+
+    private boolean isCurrent(String recordVersion) {
+        String current = version;
+        return current == null || current.equals(recordVersion);
+    }
+
+
+    private Segment createSegment(long number) throws IOException {
+        return mapSegment(directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX), segmentSize);
+    }
+
+
+    private static Segment mapSegment(Path file, long size) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    }
+
+
+    private static long segmentNumber(Path file) {
+        if (file == null)
+            return -1;
+
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0)
+            return null;
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+
+            byte[] buffer = new byte[Math.max(64, raw.length / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length)
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+
+    private static byte[] inflate(ByteBuffer payload, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int read = inflater.inflate(raw, length, rawLength - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new IOException("truncated record in result store");
+                length += read;
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("corrupted record in result store", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+
+    private static class Segment {
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int writePosition;
+
+        Segment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+
+    private static class Location {
+        final Segment segment;
+        final int payloadOffset;
+        final int payloadLength;
+        final int rawLength;
+        final String version;
+
+        Location(Segment segment, int payloadOffset, int payloadLength, int rawLength, String version) {
+            this.segment = segment;
+            this.payloadOffset = payloadOffset;
+            this.payloadLength = payloadLength;
+            this.rawLength = rawLength;
+            this.version = version;
+        }
+    }
+}
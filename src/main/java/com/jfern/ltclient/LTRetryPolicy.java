@@ -0,0 +1,231 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries and hedging applied by the client to each request, see {@link LTClient#setRetryPolicy(LTRetryPolicy)}.
+ * <p>
+ * Failed attempts (429 and 5xx responses, connection errors and timeouts) are retried on another server when there is one,
+ * after an exponential backoff with full jitter: a random wait between 0 and initialBackoff * 2^(attempt-1), capped at maxBackoff.
+ * When the server sends a Retry-After header the wait is at least that long, if it is longer than maxBackoff the request is not retried.
+ * <p>
+ * With hedging enabled, when an attempt takes longer than the given percentile of the recent latencies a duplicate is sent
+ * to another server, the first response wins and the other attempt is cancelled. Example:
+ * <pre>{@code
+ * client.setRetryPolicy(LTRetryPolicy.builder()
+ *         .maxAttempts(4)
+ *         .hedgePercentile(0.95)
+ *         .build());
+ * }</pre>
+ */
+@Getter
+public class LTRetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(100);
+    public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_MIN_HEDGE_DELAY = Duration.ofMillis(50);
+
+    /**
+     * latencies needed before hedging starts, so the percentile means something
+     */
+    static final int MIN_HEDGE_SAMPLES = 20;
+
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final double hedgePercentile;
+    private final Duration minHedgeDelay;
+
+    @Getter(AccessLevel.NONE)
+    private final LatencyWindow latencies = new LatencyWindow(256);
+
+
+    /**
+     * @param maxAttempts     attempts per request including the first one, 1 disables retries. Default {@value #DEFAULT_MAX_ATTEMPTS}
+     * @param initialBackoff  max wait before the first retry, doubled for each following retry. Default 100 ms
+     * @param maxBackoff      max wait between attempts. Default 10 s
+     * @param hedgePercentile latency percentile (e.g. 0.95) after which a duplicate request is sent, null or 0 disables hedging
+     * @param minHedgeDelay   min time before sending a duplicate, whatever the percentile. Default 50 ms
+     */
+    @Builder
+    private LTRetryPolicy(Integer maxAttempts, Duration initialBackoff, Duration maxBackoff, Double hedgePercentile, Duration minHedgeDelay) {
+        this.maxAttempts = maxAttempts != null ? maxAttempts : DEFAULT_MAX_ATTEMPTS;
+        this.initialBackoff = initialBackoff != null ? initialBackoff : DEFAULT_INITIAL_BACKOFF;
+        this.maxBackoff = maxBackoff != null ? maxBackoff : DEFAULT_MAX_BACKOFF;
+        this.hedgePercentile = hedgePercentile != null ? hedgePercentile : 0;
+        this.minHedgeDelay = minHedgeDelay != null ? minHedgeDelay : DEFAULT_MIN_HEDGE_DELAY;
+
+        if (this.maxAttempts < 1)
+            throw new IllegalArgumentException("maxAttempts must be at least 1: " + this.maxAttempts);
+        if (this.hedgePercentile < 0 || this.hedgePercentile >= 1)
+            throw new IllegalArgumentException("hedgePercentile must be between 0 and 1: " + this.hedgePercentile);
+    }
+
+
+    /**
+     * @return true for the status codes worth another attempt: 429 Too Many Requests and 5xx
+     */
+    public boolean isRetryable(int statusCode) {
+        return statusCode == 429 || statusCode >= HttpURLConnection.HTTP_INTERNAL_ERROR;
+    }
+
+
+    /**
+     * @return true for connection errors and timeouts. Requests rejected by the client itself ({@link LTRateLimiter},
+     * {@link LTCircuitBreaker}, deadline) are not retried.
+     */
+    public boolean isRetryable(Throwable throwable) {
+        return throwable instanceof IOException && !(throwable instanceof LTQuotaExceededException) && !(throwable instanceof LTRequestTooLargeException)
+                && !(throwable instanceof LTCircuitOpenException) && !(throwable instanceof LTDeadlineExceededException);
+    }
+
+
+    /**
+     * @param attempt    the attempt that failed, starting at 1
+     * @param retryAfter the wait asked by the server, or null
+     * @return nanoseconds to wait before the next attempt, or -1 if the server asked to wait longer than maxBackoff
+     */
+    long backoffNanos(int attempt, Duration retryAfter) {
+        long max = maxBackoff.toNanos();
+
+        if (retryAfter != null && retryAfter.toNanos() > max)
+            return -1;
+
+        long initial = initialBackoff.toNanos();
+        int doublings = Math.max(0, attempt - 1);
+        //capped before shifting, so a large initial backoff doesn't overflow
+        long ceiling = initial <= 0 ? 0 : doublings >= Long.numberOfLeadingZeros(initial) - 1 ? max : Math.min(max, initial << doublings);
+        long wait = ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+
+        return retryAfter == null ? wait : Math.max(wait, retryAfter.toNanos());
+    }
+
+
+    /**
+     * @return nanoseconds after which a duplicate of a request is sent, or -1 if hedging is disabled or there are too few samples
+     */
+    long hedgeDelayNanos() {
+        if (hedgePercentile == 0)
+            return -1;
+
+        long percentile = latencies.percentile(hedgePercentile);
+
+        return percentile < 0 ? -1 : Math.max(percentile, minHedgeDelay.toNanos());
+    }
+
+
+    /**
+     * Records the latency of a successful attempt, used for the hedging percentile.
+     */
+    void recordLatency(long latencyNanos) {
+        if (hedgePercentile != 0)
+            latencies.add(latencyNanos);
+    }
+
+
+    /**
+     * Parses a Retry-After header, given in seconds or as an HTTP date.
+     *
+     * @return the wait asked by the server, or null if there is no (valid) header
+     */
+    public static Duration retryAfter(HttpHeaders headers) {
+        String value = headers.firstValue("Retry-After").orElse(null);
+        if (value == null)
+            return null;
+
+        value = value.trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            //not seconds, try the date format
+        }
+
+        try {
+            Duration wait = Duration.between(Instant.now(), ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+            return wait.isNegative() ? Duration.ZERO : wait;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+
+    /**
+     * Last latencies in a ring buffer. The percentile is recomputed every {@link #REFRESH} samples.
+     */
+    static class LatencyWindow {
+
+        private static final int REFRESH = 32;
+
+        private final long[] samples;
+        private int count;
+        private int sinceRefresh;
+        private double cachedQuantile = -1;
+        private long cachedPercentile = -1;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void add(long latencyNanos) {
+            samples[count % samples.length] = latencyNanos;
+            count++;
+            sinceRefresh++;
+        }
+
+        synchronized long percentile(double quantile) {
+            int size = Math.min(count, samples.length);
+            if (size < MIN_HEDGE_SAMPLES)
+                return -1;
+
+            if (quantile != cachedQuantile || sinceRefresh >= REFRESH) {
+                long[] sorted = Arrays.copyOf(samples, size);
+                Arrays.sort(sorted);
+                cachedPercentile = sorted[Math.min(size - 1, (int) Math.ceil(quantile * size) - 1)];
+                cachedQuantile = quantile;
+                sinceRefresh = 0;
+            }
+
+            return cachedPercentile;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.jfern.ltclient.POJO.LTCategory;
+import com.jfern.ltclient.POJO.LTRule;
+import com.jfern.ltclient.POJO.LTValue;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
+
+/**
+ * Canonical instances of the rules and categories of the matches.
+ * A response repeats a few dozen rules over thousands of matches, and the same rules come back in every response:
+ * the JSON parsers of the client resolve each deserialized {@link LTRule} and {@link LTCategory} into one shared instance
+ * (with an unmodifiable url list), and their strings (ids, descriptions, issue types) into canonical strings,
+ * so retained results only keep one copy of each.
+ * <p>
+ * The registry is bounded: past maxSize rules (or strings), new ones are returned as parsed, not registered
+ * (logged once). Clients use the {@link #getDefault() default registry} unless given another one, or none, with
+ * {@link LTClient#setRuleRegistry(LTRuleRegistry)}, e.g. to give a client a registry of its own size or to stop interning.
+ */
+@Slf4j
+public class LTRuleRegistry {
+
+    /**
+     * Rules and strings kept by the default registry, LanguageTool has a few thousand rules per language.
+     */
+    public static final int DEFAULT_MAX_SIZE = 20_000;
+
+    private static final LTRuleRegistry DEFAULT = new LTRuleRegistry(DEFAULT_MAX_SIZE);
+
+    private static final ObjectMapper PLAIN_MAPPER = newMapper();
+
+    private final int maxSize;
+    private final Map<LTRule, LTRule> rules = new ConcurrentHashMap<>();
+    private final Map<LTCategory, LTCategory> categories = new ConcurrentHashMap<>();
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+    private final AtomicBoolean full = new AtomicBoolean();
+
+    private volatile ObjectMapper mapper;
+
+
+    public LTRuleRegistry(int maxSize) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("maxSize <= 0");
+        this.maxSize = maxSize;
+    }
+
+
+    /**
+     * @return the registry used by the JSON parsers of the clients, unless they are given another one
+     */
+    public static LTRuleRegistry getDefault() {
+        return DEFAULT;
+    }
+
+
+    /**
+     * @return the canonical instance equal to the rule (the rule itself when not registered yet and the registry is full)
+     */
+    public LTRule intern(LTRule rule) {
+        if (rule == null)
+            return null;
+
+        LTRule canonical = rules.get(rule);
+        if (canonical != null)
+            return canonical;
+        if (rules.size() >= maxSize)
+            return full(rule);
+
+        List<LTValue> urls = null;
+        if (rule.getUrls() != null) {
+            //not List.copyOf: null elements are possible in the JSON
+            urls = new ArrayList<>(rule.getUrls().size());
+            for (LTValue url : rule.getUrls())
+                urls.add(url == null ? null : intern(url));
+            urls = Collections.unmodifiableList(urls);
+        }
+
+        canonical = LTRule.builder()
+                .id(intern(rule.getId()))
+                .subId(intern(rule.getSubId()))
+                .description(intern(rule.getDescription()))
+                .urls(urls)
+                .issueType(intern(rule.getIssueType()))
+                .category(intern(rule.getCategory()))
+                .build();
+
+        LTRule previous = rules.putIfAbsent(canonical, canonical);
+        return previous != null ? previous : canonical;
+    }
+
+
+    /**
+     * @return the canonical instance equal to the category (the category itself when not registered yet and the registry is full)
+     */
+    public LTCategory intern(LTCategory category) {
+        if (category == null)
+            return null;
+
+        LTCategory canonical = categories.get(category);
+        if (canonical != null)
+            return canonical;
+        if (categories.size() >= maxSize)
+            return full(category);
+
+        canonical = LTCategory.builder()
+                .id(intern(category.getId()))
+                .name(intern(category.getName()))
+                .build();
+
+        LTCategory previous = categories.putIfAbsent(canonical, canonical);
+        return previous != null ? previous : canonical;
+    }
+
+
+    /**
+     * @return the canonical string equal to the string (the string itself when not registered yet and the registry is full)
+     */
+    public String intern(String string) {
+        if (string == null)
+            return null;
+
+        String canonical = strings.get(string);
+        if (canonical != null)
+            return canonical;
+        if (strings.size() >= maxSize)
+            return full(string);
+
+        String previous = strings.putIfAbsent(string, string);
+        return previous != null ? previous : string;
+    }
+
+
+    /**
+     * @return number of rules registered
+     */
+    public int size() {
+        return rules.size();
+    }
+
+
+    /**
+     * Forgets the registered rules, categories and strings. Parsed results keep the instances they already have.
+     */
+    public void clear() {
+        rules.clear();
+        categories.clear();
+        strings.clear();
+        full.set(false);
+    }
+
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+
+    private <T> T full(T value) {
+        if (full.compareAndSet(false, true))
+            log.warn("rule registry full (" + maxSize + " entries), new rules are no longer shared");
+        return value;
+    }
+
+
+    private LTValue intern(LTValue value) {
+        String string = intern(value.getValue());
+        return string == value.getValue() ? value : LTValue.builder().value(string).build();
+    }
+
+
+    /**
+     * @return a JSON mapper for the responses, resolving their rules into the registry, or not when it is null
+     */
+    static ObjectMapper mapper(LTRuleRegistry registry) {
+        if (registry == null)
+            return PLAIN_MAPPER;
+
+        ObjectMapper mapper = registry.mapper;
+        if (mapper == null) {
+            //racing threads may build one each, they are equivalent
+            mapper = newMapper().registerModule(registry.module());
+            registry.mapper = mapper;
+        }
+        return mapper;
+    }
+
+
+    private static ObjectMapper newMapper() {
+        return new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+
+    /**
+     * @return a Jackson module resolving the deserialized rules and categories into this registry
+     */
+    public SimpleModule module() {
+        SimpleModule module = new SimpleModule("LTRuleRegistry");
+        module.setDeserializerModifier(new BeanDeserializerModifier() {
+            @Override
+            public JsonDeserializer<?> modifyDeserializer(DeserializationConfig config, BeanDescription description, JsonDeserializer<?> deserializer) {
+                //@Jacksonized classes are deserialized through their builder
+                Class<?> type = description.getBeanClass();
+                if (type == LTRule.LTRuleBuilder.class)
+                    return new InterningDeserializer<LTRule>(deserializer, rule -> intern(rule));
+                if (type == LTCategory.LTCategoryBuilder.class)
+                    return new InterningDeserializer<LTCategory>(deserializer, category -> intern(category));
+                return deserializer;
+            }
+        });
+        return module;
+    }
+
+
+    private static class InterningDeserializer<T> extends DelegatingDeserializer {
+
+        private final UnaryOperator<T> interner;
+
+        InterningDeserializer(JsonDeserializer<?> delegate, UnaryOperator<T> interner) {
+            super(delegate);
+            this.interner = interner;
+        }
+
+        @Override
+        protected JsonDeserializer<?> newDelegatingInstance(JsonDeserializer<?> newDelegatee) {
+            return new InterningDeserializer<>(newDelegatee, interner);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return interner.apply((T) super.deserialize(parser, context));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the requests in flight and decides which waiting request goes next, see {@link LTClient#setScheduler(LTScheduler)}.
+ * <p>
+ * Waiting requests are sent by {@link LTPriority} order, then in arrival order. Each priority can use at most its share
+ * of maxConcurrency, so a lower share for {@link LTPriority#BULK} keeps free slots for {@link LTPriority#INTERACTIVE} requests
+ * even when many bulk requests are waiting. Requests whose deadline passes while they wait are dropped with a
+ * {@link LTDeadlineExceededException}.
+ * Example:
+ * <pre>{@code
+ * client.setScheduler(LTScheduler.builder()
+ *         .maxConcurrency(32)
+ *         .share(LTPriority.BULK, 0.25)
+ *         .build());
+ * }</pre>
+ */
+public class LTScheduler {
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 16;
+    public static final double DEFAULT_BULK_SHARE = 0.5;
+
+    @Getter
+    private final int maxConcurrency;
+
+    private final Map<LTPriority, Integer> limits = new EnumMap<>(LTPriority.class);
+    private final Map<LTPriority, Integer> inFlight = new EnumMap<>(LTPriority.class);
+    private final Map<LTPriority, ArrayDeque<CompletableFuture<Void>>> queues = new EnumMap<>(LTPriority.class);
+    private int totalInFlight;
+
+
+    /**
+     * @param maxConcurrency max requests in flight, default {@value #DEFAULT_MAX_CONCURRENCY}
+     * @param shares         fraction (0 to 1) of maxConcurrency each priority can use.
+     *                       Default 1 for {@link LTPriority#INTERACTIVE} and {@value #DEFAULT_BULK_SHARE} for {@link LTPriority#BULK}
+     */
+    @Builder
+    private LTScheduler(Integer maxConcurrency, @Singular Map<LTPriority, Double> shares) {
+        this.maxConcurrency = maxConcurrency != null ? maxConcurrency : DEFAULT_MAX_CONCURRENCY;
+        if (this.maxConcurrency < 1)
+            throw new IllegalArgumentException("maxConcurrency must be at least 1: " + this.maxConcurrency);
+
+        for (LTPriority priority : LTPriority.values()) {
+            double share = shares.getOrDefault(priority, priority == LTPriority.BULK ? DEFAULT_BULK_SHARE : 1.0);
+            if (share <= 0 || share > 1)
+                throw new IllegalArgumentException("share of " + priority + " must be between 0 and 1: " + share);
+
+            limits.put(priority, Math.max(1, (int) Math.round(share * this.maxConcurrency)));
+            inFlight.put(priority, 0);
+            queues.put(priority, new ArrayDeque<>());
+        }
+    }
+
+
+    /**
+     * Waits for a slot without blocking. The slot must be given back with {@link #release(LTPriority)}.
+     * Cancelling the returned future while it waits gives up the place in the queue.
+     *
+     * @param deadline {@link System#nanoTime()} after which the request is dropped, or null
+     * @return future completed when the request can be sent, or with a {@link LTDeadlineExceededException}
+     */
+    CompletableFuture<Void> acquire(LTPriority priority, Long deadline) {
+        CompletableFuture<Void> slot = new CompletableFuture<>();
+
+        if (deadline != null) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                return CompletableFuture.failedFuture(new LTDeadlineExceededException());
+
+            CompletableFuture.delayedExecutor(remaining, TimeUnit.NANOSECONDS)
+                    .execute(() -> slot.completeExceptionally(new LTDeadlineExceededException()));
+        }
+
+        synchronized (this) {
+            queues.get(priority).add(slot);
+        }
+
+        //dropped or cancelled while waiting
+        slot.whenComplete((ignored, throwable) -> {
+            if (throwable != null)
+                remove(priority, slot);
+        });
+
+        dispatch();
+        return slot;
+    }
+
+
+    void release(LTPriority priority) {
+        synchronized (this) {
+            totalInFlight--;
+            inFlight.merge(priority, -1, Integer::sum);
+        }
+
+        dispatch();
+    }
+
+
+    public synchronized int getInFlight() {
+        return totalInFlight;
+    }
+
+
+    public synchronized int getQueued(LTPriority priority) {
+        return queues.get(priority).size();
+    }
+
+
+    private synchronized void remove(LTPriority priority, CompletableFuture<Void> slot) {
+        queues.get(priority).remove(slot);
+    }
+
+
+    private void dispatch() {
+        while (true) {
+            CompletableFuture<Void> next = null;
+            LTPriority nextPriority = null;
+
+            synchronized (this) {
+                if (totalInFlight >= maxConcurrency)
+                    return;
+
+                for (LTPriority priority : LTPriority.values()) {
+                    ArrayDeque<CompletableFuture<Void>> queue = queues.get(priority);
+                    if (!queue.isEmpty() && inFlight.get(priority) < limits.get(priority)) {
+                        next = queue.poll();
+                        nextPriority = priority;
+                        break;
+                    }
+                }
+
+                if (next == null)
+                    return;
+
+                totalInFlight++;
+                inFlight.merge(nextPriority, 1, Integer::sum);
+            }
+
+            //completed outside the lock, the caller sends the request from here
+            if (!next.complete(null))
+                release(nextPriority);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import lombok.Getter;
+
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.time.Duration;
+
+/**
+ * Thrown when the LanguageTool server answers with a status code other than 200.
+ * Extends {@link ConnectException} so existing callers of {@link LTClient#check(String, String)} keep working.
+ */
+@Getter
+public class LTServerException extends ConnectException {
+
+    private final int statusCode;
+    private final String serverMessage;
+    /**
+     * wait asked by the server in the Retry-After header, or null
+     */
+    private final Duration retryAfter;
+
+    public LTServerException(int statusCode, String serverMessage) {
+        this(statusCode, serverMessage, null);
+    }
+
+    public LTServerException(int statusCode, String serverMessage, Duration retryAfter) {
+        super("error code: " + statusCode);
+        this.statusCode = statusCode;
+        this.serverMessage = serverMessage;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return true if the server signaled it is overloaded (429 Too Many Requests or 503 Service Unavailable)
+     */
+    public boolean isOverload() {
+        return statusCode == 429 || statusCode == HttpURLConnection.HTTP_UNAVAILABLE;
+    }
+}
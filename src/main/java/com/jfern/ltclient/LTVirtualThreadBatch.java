@@ -0,0 +1,181 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs blocking {@link LTClient#check(String, String) check} calls, one thread per text, on virtual threads when running
+ * on Java 21 or newer, so plain blocking code scales like the async methods.
+ * On older runtimes a pool of {@link #FALLBACK_THREADS} platform threads is used instead.
+ * <p>
+ * Each call is a structured scope: all the tasks it starts have finished (or were cancelled) when it returns,
+ * and interrupting the calling thread cancels the pending checks.
+ */
+@Slf4j
+public class LTVirtualThreadBatch {
+
+    static final int FALLBACK_THREADS = 64;
+
+    private static final MethodHandle NEW_VIRTUAL_EXECUTOR = findVirtualThreadExecutor();
+
+    private final LTClient client;
+    private final int maxConcurrency;
+
+
+    /**
+     * @param client         client used for the checks
+     * @param maxConcurrency max checks in flight at the same time, protects the server from unbounded fan out
+     */
+    public LTVirtualThreadBatch(@NonNull LTClient client, int maxConcurrency) {
+        if (maxConcurrency < 1)
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+
+        this.client = client;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+
+    /**
+     * @return true if the runtime supports virtual threads (Java 21+)
+     */
+    public static boolean isVirtualThreadsAvailable() {
+        return NEW_VIRTUAL_EXECUTOR != null;
+    }
+
+
+    /**
+     * @return an executor that starts a new virtual thread per task (Java 21+), or a pool of {@value #FALLBACK_THREADS} daemon threads
+     */
+    public static ExecutorService newThreadPerTaskExecutor() {
+        if (NEW_VIRTUAL_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_EXECUTOR.invokeExact();
+            } catch (Throwable e) {
+                log.warn("could not create virtual thread executor", e);
+            }
+        }
+
+        return Executors.newFixedThreadPool(FALLBACK_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "LTClient-blocking");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    /**
+     * Checks all the texts, each one with a blocking check on its own thread.
+     *
+     * @param language A language code like en-US, de-DE, fr, or auto, used for all the texts.
+     * @param texts    The texts to be checked.
+     * @return one result per text, in input order. Failures are reported per text.
+     * @throws InterruptedException if the calling thread is interrupted, the pending checks are cancelled
+     */
+    public List<LTBatchResult> checkAll(@NonNull String language, @NonNull List<String> texts) throws InterruptedException {
+
+        ExecutorService executor = newThreadPerTaskExecutor();
+        Semaphore permits = new Semaphore(maxConcurrency);
+
+        try {
+            List<Future<LTBatchResult>> futures = new ArrayList<>(texts.size());
+            for (int i = 0; i < texts.size(); i++) {
+                int index = i;
+                String text = texts.get(i);
+                futures.add(executor.submit(() -> checkOne(index, language, text, permits)));
+            }
+
+            List<LTBatchResult> results = new ArrayList<>(futures.size());
+            for (Future<LTBatchResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    results.add(LTBatchResult.builder().index(results.size()).error(e.getCause()).build());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+            awaitTermination(executor);
+        }
+    }
+
+
+    private LTBatchResult checkOne(int index, String language, String text, Semaphore permits) {
+        try {
+            permits.acquire();
+            try {
+                return LTBatchResult.builder().index(index).response(client.check(language, text)).build();
+            } finally {
+                permits.release();
+            }
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            return LTBatchResult.builder().index(index).error(e).build();
+        }
+    }
+
+
+    private static void awaitTermination(ExecutorService executor) {
+        boolean interrupted = false;
+
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES))
+                    break;
+                log.warn("checks still running after cancellation");
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+
+    private static MethodHandle findVirtualThreadExecutor() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
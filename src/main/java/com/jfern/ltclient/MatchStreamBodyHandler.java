@@ -0,0 +1,119 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jfern.ltclient.POJO.LTDetectedLanguage;
+import com.jfern.ltclient.POJO.LTMatch;
+import com.jfern.ltclient.POJO.LTResponse;
+import com.jfern.ltclient.POJO.LTSoftware;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Parses check responses incrementally: each match is given to the consumer as soon as it is parsed,
+ * while the rest of the body is still arriving. The returned {@link LTResponse} has the software and language info
+ * and an empty match list, so matches are never all held in memory.
+ * <p>
+ * As with {@link JsonBodyHandler}, parsing happens when the supplier is called, on the caller thread.
+ */
+class MatchStreamBodyHandler implements HttpResponse.BodyHandler<Supplier<LTResponse>> {
+
+    private final Consumer<LTMatch> consumer;
+    private final ObjectMapper mapper;
+
+
+    /**
+     * @param ruleRegistry registry sharing the rules of the parsed matches, or null not to share them
+     */
+    MatchStreamBodyHandler(Consumer<LTMatch> consumer, LTRuleRegistry ruleRegistry) {
+        this.consumer = consumer;
+        this.mapper = LTRuleRegistry.mapper(ruleRegistry);
+    }
+
+
+    @Override
+    public HttpResponse.BodySubscriber<Supplier<LTResponse>> apply(HttpResponse.ResponseInfo responseInfo) {
+        if (responseInfo.statusCode() != HttpURLConnection.HTTP_OK)
+            return JsonBodyHandler.asError(responseInfo);
+
+        return HttpResponse.BodySubscribers.mapping(
+                HttpResponse.BodySubscribers.ofInputStream(),
+                inputStream -> () -> {
+                    try (InputStream stream = inputStream) {
+                        return parse(stream, consumer, mapper);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+
+    static LTResponse parse(InputStream stream, Consumer<LTMatch> consumer) throws IOException {
+        return parse(stream, consumer, LTRuleRegistry.mapper(LTRuleRegistry.getDefault()));
+    }
+
+
+    private static LTResponse parse(InputStream stream, Consumer<LTMatch> consumer, ObjectMapper om) throws IOException {
+        LTResponse.LTResponseBuilder builder = LTResponse.builder().matches(List.of());
+
+        try (JsonParser parser = om.getFactory().createParser(stream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new IOException("expected a JSON object in check response");
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+
+                switch (field) {
+                    case "software" -> builder.software(om.readValue(parser, LTSoftware.class));
+                    case "language" -> builder.language(om.readValue(parser, LTDetectedLanguage.class));
+                    case "matches" -> {
+                        if (value == JsonToken.START_ARRAY) {
+                            while (parser.nextToken() == JsonToken.START_OBJECT)
+                                consumer.accept(om.readValue(parser, LTMatch.class));
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        return builder.build();
+    }
+}
@@ -0,0 +1,199 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Measures one attempt for the {@link LTMetricsListener}: wraps the body handler to see when the headers and the bytes
+ * of the body arrive, and the body supplier to time the parse. The event is sent once, when the body is parsed
+ * (or received, for error responses), or by {@link #failed(Throwable)} if there is no response.
+ */
+@Slf4j
+class MeteredBodyHandler implements HttpResponse.BodyHandler<Supplier<LTResponse>> {
+
+    private final HttpResponse.BodyHandler<Supplier<LTResponse>> delegate;
+    private final LTMetricsListener listener;
+    private final LTCheckRequest request;
+    private final long requestBytes;
+    private final long attemptStart = System.nanoTime();
+    private final AtomicBoolean sent = new AtomicBoolean();
+
+    private volatile String server;
+    private volatile long sentAt = -1;
+    private volatile long headersAt = -1;
+    private volatile long lastByteAt = -1;
+    private volatile long responseBytes;
+    private volatile int statusCode;
+
+
+    MeteredBodyHandler(HttpResponse.BodyHandler<Supplier<LTResponse>> delegate, LTMetricsListener listener, LTCheckRequest request, long requestBytes) {
+        this.delegate = delegate;
+        this.listener = listener;
+        this.request = request;
+        this.requestBytes = requestBytes;
+    }
+
+
+    /**
+     * Called right before the request is sent to the node.
+     */
+    void sending(LTNode node) {
+        server = node.getUrl();
+        sentAt = System.nanoTime();
+    }
+
+
+    /**
+     * Called when the attempt fails without response (connection error, timeout, rejected by the client...).
+     */
+    void failed(Throwable error) {
+        emit(error, -1, -1);
+    }
+
+
+    @Override
+    public HttpResponse.BodySubscriber<Supplier<LTResponse>> apply(HttpResponse.ResponseInfo responseInfo) {
+        headersAt = System.nanoTime();
+        statusCode = responseInfo.statusCode();
+
+        return new MeteredSubscriber(delegate.apply(responseInfo));
+    }
+
+
+    private Supplier<LTResponse> meter(Supplier<LTResponse> body) {
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                LTResponse response = body.get();
+                emit(null, parseNanos(start), response == null || response.getMatches() == null ? 0 : response.getMatches().size());
+                return response;
+            } catch (UncheckedIOException e) {
+                emit(e.getCause(), parseNanos(start), -1);
+                throw e;
+            }
+        };
+    }
+
+
+    private long parseNanos(long start) {
+        long end = System.nanoTime();
+        long lastByte = lastByteAt;
+
+        return lastByte < 0 ? end - start : end - Math.max(start, lastByte);
+    }
+
+
+    private void emit(Throwable error, long parseNanos, int matchCount) {
+        if (!sent.compareAndSet(false, true))
+            return;
+
+        long sentAt = this.sentAt;
+        long headersAt = this.headersAt;
+        long lastByteAt = this.lastByteAt;
+
+        LTCheckEvent event = LTCheckEvent.builder()
+                .language(request.getLanguage())
+                .priority(request.getPriority())
+                .server(server)
+                .statusCode(headersAt < 0 ? 0 : statusCode)
+                .error(error)
+                .encodeNanos(request.getEncodeNanos())
+                .queueWaitNanos((sentAt < 0 ? System.nanoTime() : sentAt) - attemptStart)
+                .timeToFirstByteNanos(sentAt < 0 || headersAt < 0 ? -1 : headersAt - sentAt)
+                .transferNanos(headersAt < 0 || lastByteAt < 0 ? -1 : lastByteAt - headersAt)
+                .parseNanos(parseNanos)
+                .requestBytes(requestBytes)
+                .responseBytes(responseBytes)
+                .matchCount(matchCount)
+                .build();
+
+        try {
+            listener.onCheck(event);
+        } catch (RuntimeException e) {
+            log.warn("metrics listener failed", e);
+        }
+    }
+
+
+    private class MeteredSubscriber implements HttpResponse.BodySubscriber<Supplier<LTResponse>> {
+
+        private final HttpResponse.BodySubscriber<Supplier<LTResponse>> subscriber;
+
+        MeteredSubscriber(HttpResponse.BodySubscriber<Supplier<LTResponse>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public CompletionStage<Supplier<LTResponse>> getBody() {
+            return subscriber.getBody().thenApply(body -> statusCode == HttpURLConnection.HTTP_OK ? meter(body) : body);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscriber.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            long bytes = responseBytes;
+            for (ByteBuffer buffer : item)
+                bytes += buffer.remaining();
+            responseBytes = bytes;
+
+            subscriber.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            lastByteAt = System.nanoTime();
+            subscriber.onError(throwable);
+            if (statusCode != HttpURLConnection.HTTP_OK)
+                emit(throwable, -1, -1);
+        }
+
+        @Override
+        public void onComplete() {
+            lastByteAt = System.nanoTime();
+            subscriber.onComplete();
+            //error bodies are plain text, there is nothing to parse
+            if (statusCode != HttpURLConnection.HTTP_OK)
+                emit(null, -1, -1);
+        }
+    }
+}
@@ -30,7 +30,7 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.extern.jackson.Jacksonized;
 
-@Builder
+@Builder(toBuilder = true)
 @Jacksonized
 @Getter
 public class LTContext {
@@ -33,10 +33,14 @@ import lombok.extern.jackson.Jacksonized;
 @Builder
 @Jacksonized
 @Getter
-class LTLanguage {
+public class LTLanguage {
 
     String name;
     String code;
+    /**
+     * the code with the variant, e.g. en-US (only in the /v2/languages list)
+     */
+    String longCode;
     int confidence;
     String source;
 
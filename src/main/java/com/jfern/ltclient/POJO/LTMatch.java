@@ -32,7 +32,7 @@ import lombok.extern.jackson.Jacksonized;
 
 import java.util.List;
 
-@Builder
+@Builder(toBuilder = true)
 @Jacksonized
 @Getter
 public class LTMatch {
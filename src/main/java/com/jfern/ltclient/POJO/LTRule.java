@@ -27,12 +27,14 @@ package com.jfern.ltclient.POJO;
  */
 
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.extern.jackson.Jacksonized;
 
 import java.util.List;
 
 @Builder
+@EqualsAndHashCode
 @Jacksonized
 @Getter
 public class LTRule {
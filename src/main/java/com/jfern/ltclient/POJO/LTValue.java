@@ -27,10 +27,12 @@ package com.jfern.ltclient.POJO;
  */
 
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.extern.jackson.Jacksonized;
 
 @Builder
+@EqualsAndHashCode
 @Jacksonized
 @Getter
 public class LTValue {
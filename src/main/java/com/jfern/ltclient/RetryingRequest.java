@@ -0,0 +1,202 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * One request sent following a {@link LTRetryPolicy}: failed attempts are retried after a backoff, and with hedging
+ * a slow attempt gets a duplicate on another node. The first usable response completes {@link #getResult()},
+ * the other attempts are cancelled. Cancelling the result cancels the attempts in flight and the pending retries.
+ */
+class RetryingRequest<T> {
+
+    /**
+     * Sends one attempt.
+     */
+    interface Attempt<T> {
+        /**
+         * @param exclude  node to avoid if there is another one, or null
+         * @param selected receives the node chosen for the attempt
+         */
+        CompletableFuture<HttpResponse<T>> send(LTNode exclude, Consumer<LTNode> selected);
+    }
+
+    private final LTRetryPolicy policy;
+    private final Attempt<T> attempt;
+    private final Consumer<HttpResponse<T>> discard;
+    private final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+
+    private final List<CompletableFuture<HttpResponse<T>>> running = new ArrayList<>();
+    private int attempts;
+    private boolean hedged;
+
+
+    /**
+     * @param discard releases the response of an attempt that lost against another one, null disables hedging
+     */
+    RetryingRequest(LTRetryPolicy policy, Attempt<T> attempt, Consumer<HttpResponse<T>> discard) {
+        this.policy = policy;
+        this.attempt = attempt;
+        this.discard = discard;
+
+        result.whenComplete((response, throwable) -> cancelRunning());
+    }
+
+
+    CompletableFuture<HttpResponse<T>> getResult() {
+        return result;
+    }
+
+
+    RetryingRequest<T> start() {
+        launch(null);
+        return this;
+    }
+
+
+    private void launch(LTNode exclude) {
+        LTNode[] node = new LTNode[1];
+        CompletableFuture<HttpResponse<T>> future;
+
+        synchronized (this) {
+            if (result.isDone())
+                return;
+            attempts++;
+        }
+
+        long start = System.nanoTime();
+        try {
+            future = attempt.send(exclude, selected -> node[0] = selected);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+
+        synchronized (this) {
+            running.add(future);
+        }
+
+        long hedgeDelay = discard == null ? -1 : policy.hedgeDelayNanos();
+        if (hedgeDelay >= 0) {
+            CompletableFuture.delayedExecutor(hedgeDelay, TimeUnit.NANOSECONDS).execute(() -> {
+                synchronized (this) {
+                    if (hedged || future.isDone() || result.isDone())
+                        return;
+                    hedged = true;
+                }
+                launch(node[0]);
+            });
+        }
+
+        future.whenComplete((response, throwable) -> onComplete(future, node[0], response, throwable, System.nanoTime() - start));
+    }
+
+
+    private void onComplete(CompletableFuture<HttpResponse<T>> future, LTNode node, HttpResponse<T> response, Throwable throwable, long latencyNanos) {
+        throwable = unwrap(throwable);
+        boolean retryable = throwable != null ? policy.isRetryable(throwable) : policy.isRetryable(response.statusCode());
+        boolean others;
+        int attempt;
+
+        synchronized (this) {
+            running.remove(future);
+            others = !running.isEmpty();
+            attempt = attempts;
+        }
+
+        if (result.isDone()) {
+            if (response != null)
+                discard(response);
+            return;
+        }
+
+        if (!retryable) {
+            if (throwable == null)
+                policy.recordLatency(latencyNanos);
+            complete(response, throwable);
+            return;
+        }
+
+        //a hedged attempt is still running, it may succeed
+        if (others)
+            return;
+
+        long wait = attempt >= policy.getMaxAttempts() ? -1
+                : policy.backoffNanos(attempt, response != null ? LTRetryPolicy.retryAfter(response.headers()) : null);
+
+        if (wait < 0) {
+            complete(response, throwable);
+            return;
+        }
+
+        if (response != null)
+            discard(response);
+
+        CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS).execute(() -> launch(node));
+    }
+
+
+    private void complete(HttpResponse<T> response, Throwable throwable) {
+        boolean completed = throwable != null ? result.completeExceptionally(throwable) : result.complete(response);
+
+        if (!completed && response != null)
+            discard(response);
+    }
+
+
+    private void discard(HttpResponse<T> response) {
+        if (discard != null)
+            discard.accept(response);
+    }
+
+
+    private void cancelRunning() {
+        List<CompletableFuture<HttpResponse<T>>> toCancel;
+        synchronized (this) {
+            toCancel = new ArrayList<>(running);
+        }
+
+        for (CompletableFuture<HttpResponse<T>> future : toCancel)
+            future.cancel(true);
+    }
+
+
+    private static Throwable unwrap(Throwable throwable) {
+        while ((throwable instanceof CompletionException || throwable instanceof ExecutionException) && throwable.getCause() != null)
+            throwable = throwable.getCause();
+
+        return throwable;
+    }
+}
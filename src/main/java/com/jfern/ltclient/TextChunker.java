@@ -0,0 +1,184 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTContext;
+import com.jfern.ltclient.POJO.LTMatch;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits large texts into size bounded chunks and moves matches found in a chunk back to the original text.
+ */
+class TextChunker {
+
+    private TextChunker() {
+    }
+
+
+    /**
+     * Splits the text in contiguous chunks of at most maxChunkSize chars.
+     * Chunks end preferably at a paragraph break (blank line), then at a sentence boundary, then at a whitespace.
+     * A hard cut is only done when none of those exist inside the chunk, and never inside a surrogate pair.
+     *
+     * @return the end offset of each chunk (exclusive), the last one is always the text length
+     */
+    static List<Integer> split(String text, int maxChunkSize, Locale locale) {
+        if (maxChunkSize < 1)
+            throw new IllegalArgumentException("maxChunkSize must be positive: " + maxChunkSize);
+
+        List<Integer> ends = new ArrayList<>();
+        BreakIterator sentences = null;
+
+        int start = 0;
+        while (text.length() - start > maxChunkSize) {
+            int limit = start + maxChunkSize;
+
+            int end = lastParagraphBreak(text, start, limit);
+
+            if (end <= start) {
+                if (sentences == null) {
+                    sentences = BreakIterator.getSentenceInstance(locale);
+                    sentences.setText(text);
+                }
+                end = sentences.preceding(limit + 1);
+            }
+
+            if (end <= start)
+                end = lastWhitespace(text, start, limit);
+
+            if (end <= start) {
+                end = limit;
+                //don't split a surrogate pair, with a 1 char chunk it is kept whole (1 char over the limit)
+                if (Character.isHighSurrogate(text.charAt(end - 1)))
+                    end = end - 1 > start ? end - 1 : limit + 1;
+            }
+
+            ends.add(end);
+            start = end;
+        }
+
+        ends.add(text.length());
+        return ends;
+    }
+
+
+    /**
+     * Splits the text in paragraphs, each one ending after the blank line(s) that separate it from the next.
+     *
+     * @return the end offset of each paragraph (exclusive), the last one is always the text length
+     */
+    static List<Integer> paragraphs(String text) {
+        List<Integer> ends = new ArrayList<>();
+
+        int i = 0;
+        while (i < text.length()) {
+            int next = text.indexOf('\n', i);
+            if (next < 0)
+                break;
+
+            int end = next + 1;
+            if (end < text.length() && text.charAt(end) == '\r')
+                end++;
+
+            if (end < text.length() && text.charAt(end) == '\n') {
+                while (end < text.length() && (text.charAt(end) == '\n' || text.charAt(end) == '\r'))
+                    end++;
+                ends.add(end);
+            }
+            i = end;
+        }
+
+        if (ends.isEmpty() || ends.get(ends.size() - 1) != text.length())
+            ends.add(text.length());
+
+        return ends;
+    }
+
+
+    /**
+     * Moves a match found in a chunk (or paragraph) to the document.
+     * The context is rebuilt from the document with the same amount of chars around the error,
+     * so matches near a chunk border get the real surrounding text.
+     *
+     * @param match    match with offsets relative to the chunk
+     * @param shift    offset of the chunk in the document
+     * @param document the whole text
+     */
+    static LTMatch relocate(LTMatch match, int shift, String document) {
+        int offset = match.getOffset() + shift;
+        LTContext context = match.getContext();
+
+        if (context != null && context.getText() != null) {
+            int before = context.getOffset();
+            int after = context.getText().length() - context.getOffset() - context.getLength();
+
+            int from = Math.max(0, offset - before);
+            int to = Math.min(document.length(), offset + match.getLength() + Math.max(0, after));
+
+            context = context.toBuilder()
+                    .text(document.substring(from, Math.max(from, to)))
+                    .offset(offset - from)
+                    .build();
+        }
+
+        return match.toBuilder().offset(offset).context(context).build();
+    }
+
+
+    static Locale toLocale(String language) {
+        return language == null || language.equals("auto") ? Locale.ROOT : Locale.forLanguageTag(language);
+    }
+
+
+    private static int lastParagraphBreak(String text, int start, int limit) {
+        for (int i = limit - 1; i > start; i--) {
+            if (text.charAt(i) != '\n')
+                continue;
+
+            int previous = i - 1;
+            if (previous > start && text.charAt(previous) == '\r')
+                previous--;
+
+            if (text.charAt(previous) == '\n')
+                return i + 1;
+        }
+        return -1;
+    }
+
+
+    private static int lastWhitespace(String text, int start, int limit) {
+        for (int i = limit - 1; i > start; i--) {
+            if (Character.isWhitespace(text.charAt(i)))
+                return i + 1;
+        }
+        return -1;
+    }
+}
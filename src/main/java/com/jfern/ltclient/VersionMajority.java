@@ -0,0 +1,76 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Server version reported by most of the recent responses. With servers on different versions behind the client
+ * (e.g. during a rolling upgrade) the responses alternate between versions, following the majority keeps the
+ * result store on one of them instead of invalidating it on every switch.
+ */
+class VersionMajority {
+
+    static final int DEFAULT_WINDOW = 32;
+
+    private final String[] window;
+    private final Map<String, Integer> counts = new HashMap<>();
+    private int next;
+    private int size;
+
+
+    VersionMajority(int window) {
+        if (window < 1)
+            throw new IllegalArgumentException("invalid window: " + window);
+
+        this.window = new String[window];
+    }
+
+
+    /**
+     * Records the version of a response.
+     *
+     * @return the version of more than half of the recent responses, or null if there is none
+     */
+    synchronized String add(String version) {
+        String evicted = window[next];
+        if (evicted != null)
+            counts.computeIfPresent(evicted, (key, count) -> count == 1 ? null : count - 1);
+
+        window[next] = version;
+        next = (next + 1) % window.length;
+        size = Math.min(size + 1, window.length);
+        counts.merge(version, 1, Integer::sum);
+
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() * 2 > size)
+                return entry.getKey();
+        }
+        return null;
+    }
+}
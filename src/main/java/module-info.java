@@ -31,6 +31,7 @@ module com.jfern.LTClient {
     requires com.fasterxml.jackson.annotation;
     requires com.fasterxml.jackson.core;
     requires org.slf4j;
+    requires static jdk.jfr;
 
     //required to run JUnit tests
     opens com.jfern.ltclient.POJO to com.fasterxml.jackson.databind;
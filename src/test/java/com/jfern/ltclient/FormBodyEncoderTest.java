@@ -0,0 +1,68 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FormBodyEncoderTest {
+
+    @Test
+    void matchesUrlEncoder() {
+        String[] values = {
+                "",
+                "plain",
+                "Texto com acentuação e espaços",
+                "symbols &=+%/?#~!'()",
+                "ÄÖÜ ß € 日本語",
+                "emoji 😀 here",
+                "unpaired \uD800 high and \uDC00 low surrogates \uD800",
+                "line\nbreaks\r\n\ttabs"
+        };
+
+        for (String value : values) {
+            byte[] encoded = new FormBodyEncoder().add("text", value).toByteArray();
+            assertEquals("text=" + URLEncoder.encode(value, StandardCharsets.UTF_8), new String(encoded, StandardCharsets.US_ASCII), value);
+        }
+    }
+
+    @Test
+    void joinsParametersAndSkipsNulls() {
+        byte[] encoded = new FormBodyEncoder()
+                .add("language", "en-US")
+                .add("text", "a b")
+                .add("data", null)
+                .add("apiKey", "key")
+                .toByteArray();
+
+        assertEquals("language=en-US&text=a+b&apiKey=key", new String(encoded, StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,65 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FormEncodingInputStreamTest {
+
+    @Test
+    void streamsEncodedBody() throws IOException {
+        //the first surrogate pair is split by the chunk border
+        StringBuilder text = new StringBuilder("a".repeat(FormEncodingInputStream.CHUNK_CHARS - 1)).append("😀");
+        while (text.length() < FormEncodingInputStream.CHUNK_CHARS * 3)
+            text.append("Olá 😀 mundo & ");
+
+        byte[] prefix = "language=pt-PT&text=".getBytes(StandardCharsets.US_ASCII);
+        byte[] suffix = "&level=picky".getBytes(StandardCharsets.US_ASCII);
+
+        try (FormEncodingInputStream stream = new FormEncodingInputStream(prefix, new StringReader(text.toString()), suffix)) {
+            String body = new String(stream.readAllBytes(), StandardCharsets.US_ASCII);
+
+            assertEquals("language=pt-PT&text=" + URLEncoder.encode(text.toString(), StandardCharsets.UTF_8) + "&level=picky", body);
+        }
+    }
+
+    @Test
+    void emptyReader() throws IOException {
+        byte[] prefix = "text=".getBytes(StandardCharsets.US_ASCII);
+
+        try (FormEncodingInputStream stream = new FormEncodingInputStream(prefix, new StringReader(""), new byte[0])) {
+            assertEquals("text=", new String(stream.readAllBytes(), StandardCharsets.US_ASCII));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LTCircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private LTCircuitBreaker newBreaker(Duration slowCallDuration) {
+        LTCircuitBreaker breaker = LTCircuitBreaker.builder()
+                .failureRateThreshold(0.5)
+                .slowCallDuration(slowCallDuration)
+                .minimumCalls(10)
+                .windowSize(10)
+                .openDuration(Duration.ofSeconds(30))
+                .halfOpenCalls(2)
+                .build();
+        breaker.setClock(now::get);
+        return breaker;
+    }
+
+    @Test
+    void opensOnFailureRateAndFailsFast() throws LTCircuitOpenException {
+        LTCircuitBreaker breaker = newBreaker(null);
+
+        for (int i = 0; i < 5; i++) {
+            breaker.acquire();
+            breaker.onSuccess(0);
+        }
+        for (int i = 0; i < 4; i++) {
+            breaker.acquire();
+            breaker.onFailure(0);
+        }
+        assertEquals(LTCircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.acquire();
+        breaker.onFailure(0);
+        assertEquals(LTCircuitBreaker.State.OPEN, breaker.getState());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        LTCircuitOpenException e = assertThrows(LTCircuitOpenException.class, breaker::acquire);
+        assertEquals(Duration.ofSeconds(20), e.getRetryAfter());
+    }
+
+    @Test
+    void opensOnSlowCalls() throws LTCircuitOpenException {
+        LTCircuitBreaker breaker = newBreaker(Duration.ofMillis(100));
+
+        for (int i = 0; i < 10; i++) {
+            breaker.acquire();
+            breaker.onSuccess(TimeUnit.SECONDS.toNanos(1));
+        }
+
+        assertEquals(LTCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpenProbesCloseOrReopen() throws LTCircuitOpenException {
+        LTCircuitBreaker breaker = newBreaker(null);
+        for (int i = 0; i < 10; i++) {
+            breaker.acquire();
+            breaker.onFailure(0);
+        }
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertEquals(LTCircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        //only the probes go through
+        breaker.acquire();
+        breaker.acquire();
+        assertThrows(LTCircuitOpenException.class, breaker::acquire);
+
+        breaker.onSuccess(0);
+        breaker.onFailure(0);
+        assertEquals(LTCircuitBreaker.State.OPEN, breaker.getState());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        breaker.acquire();
+        breaker.onIgnore();
+        breaker.acquire();
+        breaker.acquire();
+        breaker.onSuccess(0);
+        breaker.onSuccess(0);
+        assertEquals(LTCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        for (double threshold : new double[]{0, -0.5, 1.5, Double.NaN}) {
+            assertThrows(IllegalArgumentException.class, () -> LTCircuitBreaker.builder().failureRateThreshold(threshold).build());
+            assertThrows(IllegalArgumentException.class, () -> LTCircuitBreaker.builder().slowCallRateThreshold(threshold).build());
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> LTCircuitBreaker.builder().openDuration(Duration.ZERO).build());
+        assertThrows(IllegalArgumentException.class, () -> LTCircuitBreaker.builder().openDuration(Duration.ofSeconds(-1)).build());
+        assertThrows(IllegalArgumentException.class, () -> LTCircuitBreaker.builder().slowCallDuration(Duration.ZERO).build());
+
+        assertEquals(1, LTCircuitBreaker.builder().failureRateThreshold(1.0).build().getFailureRateThreshold());
+    }
+}
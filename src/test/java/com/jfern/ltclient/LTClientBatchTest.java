@@ -0,0 +1,154 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LTClientBatchTest {
+
+    /**
+     * answers 500 to the texts containing "fail"
+     */
+    private static StubHttpClient newServer() {
+        return StubHttpClient.answering(form -> form.get("text").contains("fail")
+                ? new StubHttpClient.Reply(500, "down")
+                : StubHttpClient.Reply.ok(StubHttpClient.NO_MATCHES));
+    }
+
+    private static LTClient newClient(StubHttpClient server) {
+        return LTClient.builder().serverURL("http://stub").httpClient(server).build();
+    }
+
+    @Test
+    void reportsFailuresPerTextInOrder() throws InterruptedException {
+        StubHttpClient server = newServer();
+        try (LTClient client = newClient(server)) {
+            List<LTBatchResult> results = client.checkBatch("en-US", Stream.of("one", "two fail", "three"), 2);
+
+            assertEquals(3, results.size());
+            for (int i = 0; i < results.size(); i++)
+                assertEquals(i, results.get(i).getIndex());
+
+            assertTrue(results.get(0).isSuccess());
+            assertTrue(results.get(2).isSuccess());
+            assertFalse(results.get(1).isSuccess());
+            assertInstanceOf(LTServerException.class, results.get(1).getError());
+            assertEquals(3, server.requests.size());
+        }
+    }
+
+    @Test
+    void flagsFallbackResponses() throws InterruptedException {
+        try (LTClient client = newClient(newServer())) {
+            client.setFallback(LTFallback.empty());
+
+            List<LTBatchResult> results = client.checkBatch("en-US", List.of("one", "two fail"));
+
+            assertFalse(results.get(0).isFallback());
+            assertNull(results.get(0).getFallbackCause());
+
+            assertTrue(results.get(1).isSuccess());
+            assertTrue(results.get(1).isFallback());
+            assertTrue(results.get(1).getResponse().getMatches().isEmpty());
+            assertInstanceOf(LTServerException.class, results.get(1).getFallbackCause());
+        }
+    }
+
+    @Test
+    void reportsTheFallbackChunksOfALargeText() throws IOException, InterruptedException {
+        String text = "The first paragraph.\n\nThe second one will fail.";
+
+        try (LTClient client = newClient(newServer())) {
+            client.setFallback(LTFallback.empty());
+
+            LTLargeTextResult result = client.checkLargeTextResult("en-US", text, 25, 2);
+
+            assertTrue(result.isFallback());
+            assertEquals(1, result.getFallbackChunks().size());
+            LTLargeTextResult.FallbackChunk chunk = result.getFallbackChunks().get(0);
+            assertEquals(text.indexOf("The second"), chunk.getStart());
+            assertEquals(text.length(), chunk.getEnd());
+            assertInstanceOf(LTServerException.class, chunk.getCause());
+        }
+    }
+
+    @Test
+    void cachedTextsAreNotSent() throws InterruptedException {
+        StubHttpClient server = newServer();
+        try (LTClient client = newClient(server)) {
+            client.setResponseCache(new LTResponseCache(1_000_000, Duration.ofMinutes(1)));
+
+            LTBatchResult first = client.checkBatch("en-US", List.of("one")).get(0);
+            LTBatchResult second = client.checkBatch("en-US", List.of("one")).get(0);
+
+            assertSame(first.getResponse(), second.getResponse());
+            assertEquals(1, server.requests.size());
+        }
+    }
+
+    @Test
+    void parsesAndFallsBackOnTheParseExecutor() throws InterruptedException {
+        ExecutorService parseExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "parse"));
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        try (LTClient client = newClient(newServer())) {
+            client.setParseExecutor(parseExecutor);
+            client.setFallback((language, text, error) -> {
+                threads.add(Thread.currentThread().getName());
+                return LTFallback.empty().apply(language, text, error);
+            });
+            client.setMetricsListener(event -> {
+                if (event.getMatchCount() >= 0)
+                    threads.add(Thread.currentThread().getName());
+            });
+
+            List<LTBatchResult> results = client.checkBatch("en-US", List.of("one", "two fail"));
+
+            assertTrue(results.get(0).isSuccess());
+            assertTrue(results.get(1).isFallback());
+            assertEquals(Set.of("parse"), threads);
+        } finally {
+            parseExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTResponse;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LTClientCoalescingTest {
+
+    /**
+     * replies of the requests received, completed by the tests
+     */
+    private final List<CompletableFuture<StubHttpClient.Reply>> replies = new CopyOnWriteArrayList<>();
+
+    private final StubHttpClient server = new StubHttpClient(form -> {
+        CompletableFuture<StubHttpClient.Reply> reply = new CompletableFuture<>();
+        replies.add(reply);
+        return reply;
+    });
+
+    private LTClient newClient() {
+        return LTClient.builder().serverURL("http://stub").httpClient(server).build();
+    }
+
+    private void answerAll() {
+        replies.forEach(reply -> reply.complete(StubHttpClient.Reply.ok(StubHttpClient.NO_MATCHES)));
+    }
+
+    @Test
+    void identicalRequestsJoinTheRequestInFlight() throws Exception {
+        try (LTClient client = newClient()) {
+            CompletableFuture<HttpResponse<Supplier<LTResponse>>> first = client.checkAsync("en-US", "same text");
+            CompletableFuture<HttpResponse<Supplier<LTResponse>>> second = client.checkAsync("en-US", "same text");
+            client.checkAsync("en-US", "other text");
+
+            assertEquals(2, server.requests.size());
+            assertEquals(1, client.getCoalescedRequests());
+
+            answerAll();
+            assertEquals(200, first.get(5, TimeUnit.SECONDS).statusCode());
+            assertEquals(200, second.get(5, TimeUnit.SECONDS).statusCode());
+
+            //the first request is done, the next one is sent again
+            client.checkAsync("en-US", "same text");
+            assertEquals(3, server.requests.size());
+            assertEquals(1, client.getCoalescedRequests());
+        }
+    }
+
+    @Test
+    void cancellingOneCallerKeepsTheSharedRequest() throws Exception {
+        try (LTClient client = newClient()) {
+            List<CompletableFuture<HttpResponse<Supplier<LTResponse>>>> callers = List.of(
+                    client.checkAsync("en-US", "same text"),
+                    client.checkAsync("en-US", "same text"),
+                    client.checkAsync("en-US", "same text"));
+
+            callers.get(0).cancel(true);
+            callers.get(2).cancel(true);
+            assertFalse(server.sent.get(0).isCancelled());
+
+            answerAll();
+            assertEquals(200, callers.get(1).get(5, TimeUnit.SECONDS).statusCode());
+            assertEquals(1, server.requests.size());
+        }
+    }
+
+    @Test
+    void cancellingAllCallersCancelsTheSharedRequest() throws Exception {
+        try (LTClient client = newClient()) {
+            CompletableFuture<LTResponse> first = client.checkAsyncResponse("en-US", "same text");
+            CompletableFuture<LTResponse> second = client.checkAsyncResponse("en-US", "same text");
+
+            first.cancel(true);
+            assertFalse(server.sent.get(0).isCancelled());
+            second.cancel(true);
+            assertTrue(server.sent.get(0).isCancelled());
+
+            //a new caller doesn't join the cancelled request
+            CompletableFuture<LTResponse> third = client.checkAsyncResponse("en-US", "same text");
+            assertEquals(2, server.requests.size());
+
+            answerAll();
+            assertTrue(third.get(5, TimeUnit.SECONDS).getMatches().isEmpty());
+        }
+    }
+
+    @Test
+    void cancelledSharedRequestReleasesItsSchedulerSlot() throws Exception {
+        try (LTClient client = newClient()) {
+            client.setScheduler(LTScheduler.builder().maxConcurrency(1).build());
+
+            CompletableFuture<HttpResponse<Supplier<LTResponse>>> first = client.checkAsync("en-US", "same text");
+            CompletableFuture<HttpResponse<Supplier<LTResponse>>> second = client.checkAsync("en-US", "same text");
+            CompletableFuture<HttpResponse<Supplier<LTResponse>>> other = client.checkAsync("en-US", "other text");
+            assertEquals(1, server.requests.size());
+
+            first.cancel(true);
+            second.cancel(true);
+
+            assertEquals(2, server.requests.size());
+            assertEquals("other text", server.requests.get(1).get("text"));
+
+            answerAll();
+            assertEquals(200, other.get(5, TimeUnit.SECONDS).statusCode());
+        }
+    }
+}
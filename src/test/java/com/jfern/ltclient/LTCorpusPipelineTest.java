@@ -0,0 +1,222 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jfern.ltclient.POJO.LTMatch;
+import com.jfern.ltclient.POJO.LTResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LTCorpusPipelineTest {
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Nothing listens on port 1, the fallback answers every check with one match, or fails the texts containing "fail".
+     */
+    private static LTClient newClient() {
+        LTClient client = new LTClient("http://127.0.0.1:1");
+        client.setFallback((language, text, error) -> text.contains("fail") ? null
+                : LTResponse.builder().matches(List.of(LTMatch.builder().offset(0).length(1).build())).build());
+        return client;
+    }
+
+    private static Map<String, JsonNode> readOutput(Path output) throws IOException {
+        Map<String, JsonNode> lines = new HashMap<>();
+        for (String line : Files.readAllLines(output, StandardCharsets.UTF_8)) {
+            JsonNode node = om.readTree(line);
+            lines.put(node.get("id").asText(), node);
+        }
+        return lines;
+    }
+
+    @Test
+    void checksFilesAndJsonLines() throws IOException, InterruptedException {
+        Path docs = Files.createDirectories(directory.resolve("docs"));
+        Files.writeString(docs.resolve("a.txt"), "first text");
+        Files.writeString(docs.resolve("b.md"), "# second text");
+        Files.writeString(docs.resolve("image.png"), "not a text");
+        Path dump = Files.writeString(directory.resolve("dump.jsonl"), """
+                {"id": "one", "text": "third text", "language": "pt-PT"}
+                {"id": "two", "text": "this one will fail"}
+
+                {"text": "no id"}
+                {"id": "three"}
+                """);
+        Path output = directory.resolve("out.jsonl");
+
+        try (LTClient client = newClient()) {
+            LTCorpusSummary summary = LTCorpusPipeline.builder()
+                    .client(client)
+                    .language("en-US")
+                    .input(docs)
+                    .input(dump)
+                    .output(output)
+                    .maxConcurrency(3)
+                    .build()
+                    .run();
+
+            assertEquals(6, summary.getDocuments());
+            assertEquals(2, summary.getFailed());
+            assertEquals(4, summary.getFallback());
+            assertEquals(4, summary.getMatches());
+        }
+
+        Map<String, JsonNode> lines = readOutput(output);
+        assertEquals(6, lines.size());
+        assertEquals(1, lines.get(docs.resolve("a.txt").toString()).get("response").get("matches").size());
+        assertEquals("pt-PT", lines.get("one").get("language").asText());
+        assertEquals("[[0,10]]", lines.get("one").get("fallback").toString());
+        assertEquals("en-US", lines.get(dump + ":4").get("language").asText());
+        assertTrue(lines.get("two").has("error"));
+        assertTrue(lines.get("three").get("error").asText().contains("no text field"));
+    }
+
+    @Test
+    void resumesFromCheckpoint() throws IOException, InterruptedException {
+        Path first = Files.writeString(directory.resolve("first.txt"), "first text");
+        Path second = Files.writeString(directory.resolve("second.txt"), "second text");
+        Path output = directory.resolve("out.jsonl");
+        Path checkpoint = directory.resolve("out.checkpoint");
+
+        try (LTClient client = newClient()) {
+            LTCorpusPipeline.builder().client(client).input(first).output(output).checkpoint(checkpoint).build().run();
+
+            //a crash after writing results not yet checkpointed
+            Files.writeString(output, "{\"id\": \"lost\"", StandardOpenOption.APPEND);
+            Files.writeString(checkpoint, "{\"position\": 1", StandardOpenOption.APPEND);
+
+            LTCorpusSummary summary = LTCorpusPipeline.builder()
+                    .client(client)
+                    .input(first)
+                    .input(second)
+                    .output(output)
+                    .checkpoint(checkpoint)
+                    .checkpointInterval(1)
+                    .build()
+                    .run();
+
+            assertEquals(1, summary.getDocuments());
+            assertEquals(1, summary.getSkipped());
+        }
+
+        Map<String, JsonNode> lines = readOutput(output);
+        assertEquals(2, lines.size());
+        assertTrue(lines.containsKey(first.toString()));
+        assertTrue(lines.containsKey(second.toString()));
+    }
+
+    @Test
+    void retriesFailedDocumentsOnResume() throws IOException, InterruptedException {
+        Path ok = Files.writeString(directory.resolve("ok.txt"), "fine text");
+        Path flaky = Files.writeString(directory.resolve("flaky.txt"), "flaky text");
+        Path output = directory.resolve("out.jsonl");
+        Path checkpoint = directory.resolve("out.checkpoint");
+        AtomicBoolean down = new AtomicBoolean(true);
+
+        try (LTClient client = new LTClient("http://127.0.0.1:1")) {
+            client.setFallback((language, text, error) -> text.startsWith("flaky") && down.get() ? null
+                    : LTResponse.builder().matches(List.of()).build());
+
+            LTCorpusPipeline.LTCorpusPipelineBuilder pipeline = LTCorpusPipeline.builder()
+                    .client(client)
+                    .input(ok)
+                    .input(flaky)
+                    .output(output)
+                    .checkpoint(checkpoint)
+                    .checkpointInterval(1);
+
+            assertEquals(1, pipeline.build().run().getFailed());
+
+            down.set(false);
+            LTCorpusSummary summary = pipeline.build().run();
+
+            assertEquals(1, summary.getSkipped());
+            assertEquals(1, summary.getDocuments());
+            assertEquals(0, summary.getFailed());
+        }
+
+        Map<String, JsonNode> lines = readOutput(output);
+        assertTrue(lines.get(flaky.toString()).has("response"));
+        assertTrue(lines.get(ok.toString()).has("response"));
+    }
+
+    @Test
+    void checkpointsTheDocumentsWrittenBeforeTheSinkFails() throws IOException, InterruptedException {
+        Path docs = Files.createDirectories(directory.resolve("docs"));
+        for (int i = 0; i < 5; i++)
+            Files.writeString(docs.resolve(i + ".txt"), "text " + i);
+        Path checkpoint = directory.resolve("sink.checkpoint");
+        List<String> written = new ArrayList<>();
+
+        try (LTClient client = newClient()) {
+            LTCorpusSink failing = result -> {
+                if (written.size() == 3)
+                    throw new IOException("disk full");
+                written.add(result.getDocumentId());
+            };
+
+            LTCorpusPipeline.LTCorpusPipelineBuilder pipeline = LTCorpusPipeline.builder()
+                    .client(client)
+                    .input(docs)
+                    .checkpoint(checkpoint)
+                    .checkpointInterval(100)
+                    .maxConcurrency(1);
+
+            IOException e = assertThrows(IOException.class, () -> pipeline.sink(failing).build().run());
+            assertEquals("disk full", e.getMessage());
+
+            List<String> resumed = new ArrayList<>();
+            LTCorpusSummary summary = pipeline.sink(result -> resumed.add(result.getDocumentId())).build().run();
+
+            assertEquals(3, summary.getSkipped());
+            assertEquals(2, summary.getDocuments());
+            assertTrue(Collections.disjoint(written, resumed));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTMatch;
+import com.jfern.ltclient.POJO.LTResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LTDocumentSessionTest {
+
+    /**
+     * flags every "teh", answers 500 to the texts containing "fail"
+     */
+    private static StubHttpClient newServer() {
+        return StubHttpClient.answering(form -> {
+            String text = form.get("text");
+            if (text.contains("fail"))
+                return new StubHttpClient.Reply(500, "down");
+
+            int offset = text.indexOf("teh");
+            if (offset < 0)
+                return StubHttpClient.Reply.ok(StubHttpClient.NO_MATCHES);
+
+            return StubHttpClient.Reply.ok("{\"language\":{\"name\":\"English (US)\",\"code\":\"en-US\"},\"matches\":[" +
+                    "{\"message\":\"typo\",\"offset\":" + offset + ",\"length\":3,\"replacements\":[{\"value\":\"the\"}]}]}");
+        });
+    }
+
+    private static List<String> sentTexts(StubHttpClient server) {
+        return server.requests.stream().map(form -> form.get("text")).toList();
+    }
+
+    private static List<Integer> offsets(LTResponse response) {
+        return response.getMatches().stream().map(LTMatch::getOffset).toList();
+    }
+
+    @Test
+    void checksOnlyChangedParagraphs() throws IOException, InterruptedException {
+        StubHttpClient server = newServer();
+        try (LTClient client = LTClient.builder().serverURL("http://stub").httpClient(server).build()) {
+            LTDocumentSession session = new LTDocumentSession(client, "en-US");
+
+            LTResponse first = session.update("teh one\n\ntwo\n\nthree teh");
+            assertEquals(3, session.getLastCheckedParagraphs());
+            assertEquals(List.of(0, 20), offsets(first));
+
+            server.requests.clear();
+            LTResponse second = session.update("teh one\n\ntwo teh\n\nthree teh");
+            assertEquals(1, session.getLastCheckedParagraphs());
+            assertEquals(List.of("two teh\n\n"), sentTexts(server));
+            assertEquals(List.of(0, 13, 24), offsets(second));
+
+            server.requests.clear();
+            session.update("teh one\n\ntwo teh\n\nthree teh");
+            assertEquals(0, session.getLastCheckedParagraphs());
+            assertTrue(server.requests.isEmpty());
+        }
+    }
+
+    @Test
+    void shiftsCachedMatchesAfterEarlierEdits() throws IOException, InterruptedException {
+        StubHttpClient server = newServer();
+        try (LTClient client = LTClient.builder().serverURL("http://stub").httpClient(server).build()) {
+            LTDocumentSession session = new LTDocumentSession(client, "en-US");
+
+            session.update("one\n\nthree teh");
+            server.requests.clear();
+
+            String text = "one more word\n\nthree teh";
+            LTResponse response = session.update(text);
+
+            assertEquals(List.of("one more word\n\n"), sentTexts(server));
+            assertEquals(List.of(text.lastIndexOf("teh")), offsets(response));
+        }
+    }
+
+    @Test
+    void fallbackResultsAreCheckedAgain() throws IOException, InterruptedException {
+        StubHttpClient server = newServer();
+        try (LTClient client = LTClient.builder().serverURL("http://stub").httpClient(server).build()) {
+            client.setFallback(LTFallback.empty());
+            LTDocumentSession session = new LTDocumentSession(client, "en-US");
+
+            LTResponse first = session.update("teh one\n\ntwo fail");
+            assertEquals(List.of(0), offsets(first));
+
+            server.requests.clear();
+            session.update("teh one\n\ntwo fail");
+
+            assertEquals(1, session.getLastCheckedParagraphs());
+            assertEquals(List.of("two fail"), sentTexts(server));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTResponse;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LTHistogramTest {
+
+    @Test
+    void bucketsCoverTheWholeRange() {
+        for (long value : new long[]{0, 1, 7, 8, 9, 15, 16, 1000, 123_456_789, Long.MAX_VALUE}) {
+            int bucket = LTHistogram.bucket(value);
+            assertTrue(value <= LTHistogram.upperBound(bucket), "value " + value);
+            assertTrue(bucket == 0 || value > LTHistogram.upperBound(bucket - 1), "value " + value);
+        }
+    }
+
+    @Test
+    void percentilesWithinBucketPrecision() {
+        LTHistogram histogram = new LTHistogram();
+        IntStream.rangeClosed(1, 1000).parallel().forEach(histogram::record);
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500.5, histogram.getMean(), 0.001);
+
+        long p50 = histogram.getValueAtPercentile(50);
+        assertTrue(p50 >= 500 && p50 <= 500 * 1.125, "p50 " + p50);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(p99 >= 990 && p99 <= 1000, "p99 " + p99);
+        assertEquals(0, new LTHistogram().getValueAtPercentile(99));
+    }
+
+    @Test
+    void meteredHandlerReportsTheResponse() {
+        List<LTCheckEvent> events = new ArrayList<>();
+        LTCheckRequest request = LTCheckRequest.builder().language("en-US").encodeNanos(10).build();
+        MeteredBodyHandler handler = new MeteredBodyHandler(new JsonBodyHandler<>(LTResponse.class), events::add, request, 42);
+
+        handler.sending(new LTNode("http://localhost:8081"));
+        HttpResponse.BodySubscriber<Supplier<LTResponse>> subscriber = handler.apply(responseInfo(200));
+        byte[] body = "{\"matches\":[{\"message\":\"a\"},{\"message\":\"b\"}]}".getBytes(StandardCharsets.UTF_8);
+        feed(subscriber, body);
+
+        assertTrue(events.isEmpty());
+        LTResponse response = subscriber.getBody().toCompletableFuture().join().get();
+        assertEquals(2, response.getMatches().size());
+
+        assertEquals(1, events.size());
+        LTCheckEvent event = events.get(0);
+        assertEquals("en-US", event.getLanguage());
+        assertEquals("http://localhost:8081", event.getServer());
+        assertEquals(200, event.getStatusCode());
+        assertNull(event.getError());
+        assertEquals(42, event.getRequestBytes());
+        assertEquals(body.length, event.getResponseBytes());
+        assertEquals(2, event.getMatchCount());
+        assertEquals(10, event.getEncodeNanos());
+        assertTrue(event.getTimeToFirstByteNanos() >= 0 && event.getTransferNanos() >= 0 && event.getParseNanos() >= 0);
+
+        //no recording running, the event is dropped
+        new LTJfrMetrics().onCheck(event);
+    }
+
+    @Test
+    void meteredHandlerReportsErrorResponsesOnceReceived() {
+        LTHistogramMetrics metrics = new LTHistogramMetrics();
+        MeteredBodyHandler handler = new MeteredBodyHandler(new JsonBodyHandler<>(LTResponse.class), metrics, LTCheckRequest.builder().language("de").build(), 10);
+
+        handler.sending(new LTNode("http://localhost:8081"));
+        feed(handler.apply(responseInfo(503)), "busy".getBytes(StandardCharsets.UTF_8));
+        handler.failed(new RuntimeException("reported only once"));
+
+        assertEquals(Map.of(503, 1L), metrics.getStatusCodes());
+        assertEquals(Map.of("de", 1L), metrics.getLanguages());
+        assertEquals(0, metrics.getErrors().sum());
+        assertEquals(0, metrics.getParse().getCount());
+        assertEquals(4, metrics.getResponseBytes().getMax());
+    }
+
+
+    private static void feed(HttpResponse.BodySubscriber<?> subscriber, byte[] body) {
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        subscriber.onNext(List.of(ByteBuffer.wrap(body)));
+        subscriber.onComplete();
+    }
+
+
+    private static HttpResponse.ResponseInfo responseInfo(int statusCode) {
+        return new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return statusCode;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return HttpHeaders.of(Map.of(), (name, value) -> true);
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        };
+    }
+}
@@ -0,0 +1,146 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTLanguage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LTLanguageCatalogTest {
+
+    private static final List<LTLanguage> LANGUAGES = List.of(
+            LTLanguage.builder().name("German (Germany)").code("de").longCode("de-DE").build(),
+            LTLanguage.builder().name("English").code("en").longCode("en").build(),
+            LTLanguage.builder().name("English (US)").code("en").longCode("en-US").build(),
+            LTLanguage.builder().name("Portuguese (Portugal)").code("pt").longCode("pt-PT").build());
+
+    @Test
+    void normalizesAndRejectsOnceLoaded() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<List<LTLanguage>> response = new CompletableFuture<>();
+        LTLanguageCatalog catalog = LTLanguageCatalog.builder()
+                .preferredVariant("EN", "en_US")
+                .build();
+        catalog.bind(() -> {
+            loads.incrementAndGet();
+            return response;
+        });
+
+        //not loaded yet: only the preferred variants, unknown codes go to the server
+        assertEquals("en-US", catalog.normalize("en"));
+        assertEquals("xx", catalog.normalize("xx"));
+        assertEquals(1, loads.get());
+        assertFalse(catalog.isLoaded());
+
+        response.complete(LANGUAGES);
+        assertEquals(LANGUAGES, catalog.load().get(1, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+
+        assertEquals("en-US", catalog.normalize("en"));
+        assertEquals("en-US", catalog.normalize("en_us"));
+        assertEquals("de-DE", catalog.normalize("DE-de"));
+        assertEquals("de", catalog.normalize("de"));
+        assertEquals("auto", catalog.normalize("auto"));
+        LTUnsupportedLanguageException e = assertThrows(LTUnsupportedLanguageException.class, () -> catalog.normalize("xx"));
+        assertEquals("xx", e.getLanguage());
+
+        assertEquals("Portuguese (Portugal)", catalog.getLanguage("pt-pt").orElseThrow().getName());
+        assertTrue(catalog.getLanguage("xx").isEmpty());
+        catalog.close();
+    }
+
+    @Test
+    void withoutValidationOnlyNormalizes() throws Exception {
+        LTLanguageCatalog catalog = LTLanguageCatalog.builder().validate(false).build();
+        catalog.bind(() -> CompletableFuture.completedFuture(LANGUAGES));
+
+        assertEquals("xx", catalog.normalize("xx"));
+        assertFalse(catalog.isLoaded());
+
+        catalog.load().get(1, TimeUnit.SECONDS);
+        assertEquals("en-US", catalog.normalize("en-us"));
+        assertEquals("xx", catalog.normalize("xx"));
+        catalog.close();
+    }
+
+    @Test
+    void failedLoadIsReported() {
+        LTLanguageCatalog catalog = LTLanguageCatalog.builder().build();
+        catalog.bind(() -> CompletableFuture.failedFuture(new LTServerException(500, "down")));
+
+        assertThrows(Exception.class, () -> catalog.load().get(1, TimeUnit.SECONDS));
+        assertFalse(catalog.isLoaded());
+        assertEquals("xx", catalog.normalize("xx"));
+    }
+
+    @Test
+    void clientReportsUnsupportedLanguagesInTheFuture() throws Exception {
+        StubHttpClient server = StubHttpClient.answering(form -> "/v2/languages".equals(form.get("path"))
+                ? StubHttpClient.Reply.ok("[{\"name\":\"English (US)\",\"code\":\"en\",\"longCode\":\"en-US\"}]")
+                : StubHttpClient.Reply.ok(StubHttpClient.NO_MATCHES));
+
+        try (LTClient client = LTClient.builder().serverURL("http://stub").httpClient(server)
+                .languageCatalog(LTLanguageCatalog.builder().build()).build()) {
+            client.getLanguages();
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> client.checkAsync("xx", "text").get(1, TimeUnit.SECONDS));
+            assertInstanceOf(LTUnsupportedLanguageException.class, e.getCause());
+            e = assertThrows(ExecutionException.class, () -> client.checkAsync("xx", "text", LTPriority.BULK, null).get(1, TimeUnit.SECONDS));
+            assertInstanceOf(LTUnsupportedLanguageException.class, e.getCause());
+
+            assertEquals(200, client.checkAsync("en", "text").get(1, TimeUnit.SECONDS).statusCode());
+        }
+    }
+
+    @Test
+    void clientClosesTheReplacedCatalog() {
+        LTLanguageCatalog first = LTLanguageCatalog.builder().build();
+        LTLanguageCatalog second = LTLanguageCatalog.builder().build();
+
+        try (LTClient client = LTClient.builder().serverURL("http://stub").httpClient(StubHttpClient.answering(form -> StubHttpClient.Reply.ok("[]")))
+                .languageCatalog(first).build()) {
+            client.setLanguageCatalog(first);
+            assertFalse(first.isClosed());
+
+            client.setLanguageCatalog(second);
+            assertTrue(first.isClosed());
+            assertFalse(second.isClosed());
+        }
+        assertTrue(second.isClosed());
+    }
+}
@@ -0,0 +1,174 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LTLoadBalancerTest {
+
+    @Test
+    void prefersNodeWithLessOutstandingRequests() {
+        try (LTLoadBalancer balancer = new LTLoadBalancer(List.of("http://a", "http://b"), HttpClient.newHttpClient())) {
+            LTNode a = balancer.getNodes().get(0);
+            LTNode b = balancer.getNodes().get(1);
+
+            a.onStart();
+            a.onStart();
+
+            assertSame(b, balancer.select("auto", null));
+            assertSame(a, balancer.select("auto", b));
+        }
+    }
+
+    @Test
+    void ejectsFailingNodes() {
+        try (LTLoadBalancer balancer = new LTLoadBalancer(List.of("http://a", "http://b", "http://c"), HttpClient.newHttpClient())) {
+            LTNode a = balancer.getNodes().get(0);
+
+            for (int i = 0; i < LTNode.FAILURES_TO_EJECT; i++) {
+                a.onStart();
+                a.onFailure();
+            }
+
+            assertFalse(a.isHealthy());
+            for (int i = 0; i < 100; i++)
+                assertNotSame(a, balancer.select("auto", null));
+
+            a.onProbe(true);
+            assertTrue(a.isHealthy());
+        }
+    }
+
+    @Test
+    void usesEjectedNodesWhenNoneIsHealthy() {
+        try (LTLoadBalancer balancer = new LTLoadBalancer(List.of("http://a", "http://b"), HttpClient.newHttpClient())) {
+            for (LTNode node : balancer.getNodes()) {
+                for (int i = 0; i < LTNode.FAILURES_TO_EJECT; i++) {
+                    node.onStart();
+                    node.onFailure();
+                }
+            }
+
+            assertNotNull(balancer.select("auto", null));
+        }
+    }
+
+    @Test
+    void concurrentFailuresDontExtendTheEjection() throws InterruptedException {
+        try (LTLoadBalancer balancer = new LTLoadBalancer(List.of("http://a", "http://b"), HttpClient.newHttpClient())) {
+            LTNode a = balancer.getNodes().get(0);
+            int inFlight = 50;
+            for (int i = 0; i < inFlight; i++)
+                a.onStart();
+
+            long before = System.nanoTime();
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            CountDownLatch start = new CountDownLatch(1);
+            for (int i = 0; i < inFlight; i++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        a.onFailure();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+            assertFalse(a.isHealthy());
+            assertEquals(0, a.getOutstanding());
+            long ejection = a.getEjectedUntil() - before;
+            assertTrue(ejection <= LTNode.BASE_EJECTION_NANOS + TimeUnit.SECONDS.toNanos(1), "ejected for " + ejection + "ns");
+
+            // a probe failing once the ejection time has passed doubles it
+            long due = a.getEjectedUntil();
+            a.onProbe(false, due);
+            assertEquals(2 * LTNode.BASE_EJECTION_NANOS, a.getEjectedUntil() - due);
+
+            a.onProbe(true);
+            assertTrue(a.isHealthy());
+        }
+    }
+
+    @Test
+    void routesLanguageToStableSubset() {
+        List<String> urls = List.of("http://a", "http://b", "http://c", "http://d", "http://e");
+
+        try (LTLoadBalancer balancer = new LTLoadBalancer(urls, HttpClient.newHttpClient())) {
+            balancer.setLanguageReplicas(2);
+
+            List<LTNode> german = balancer.languageNodes("de-de", 2);
+            assertEquals(2, german.size());
+
+            for (int i = 0; i < 100; i++)
+                assertTrue(german.contains(balancer.select("de-DE", null)));
+
+            LTNode ejected = german.get(0);
+            for (int i = 0; i < LTNode.FAILURES_TO_EJECT; i++) {
+                ejected.onStart();
+                ejected.onFailure();
+            }
+
+            List<LTNode> afterEjection = balancer.languageNodes("de-de", 2);
+            assertFalse(afterEjection.contains(ejected));
+            assertTrue(afterEjection.contains(german.get(1)));
+        }
+    }
+
+    @Test
+    void retriesOnAnotherNodeWhenTheOnlyReplicaIsExcluded() {
+        try (LTLoadBalancer balancer = new LTLoadBalancer(List.of("http://a", "http://b", "http://c"), HttpClient.newHttpClient())) {
+            balancer.setLanguageReplicas(1);
+
+            LTNode replica = balancer.languageNodes("de-de", 1).get(0);
+            assertSame(replica, balancer.select("de-DE", null));
+
+            for (int i = 0; i < 100; i++)
+                assertNotSame(replica, balancer.select("de-DE", replica));
+        }
+    }
+
+    @Test
+    void usesTheExcludedNodeWhenThereIsNoOther() {
+        try (LTLoadBalancer balancer = new LTLoadBalancer(List.of("http://a"), HttpClient.newHttpClient())) {
+            LTNode only = balancer.getNodes().get(0);
+            assertSame(only, balancer.select("auto", only));
+        }
+    }
+}
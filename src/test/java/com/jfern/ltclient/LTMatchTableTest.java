@@ -0,0 +1,131 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTCategory;
+import com.jfern.ltclient.POJO.LTMatch;
+import com.jfern.ltclient.POJO.LTResponse;
+import com.jfern.ltclient.POJO.LTRule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LTMatchTableTest {
+
+    private static LTMatch match(int offset, String rule, String category, String issueType) {
+        return LTMatch.builder()
+                .offset(offset)
+                .length(3)
+                .rule(LTRule.builder().id(rule).issueType(issueType).category(LTCategory.builder().id(category).build()).build())
+                .build();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void groupsAndFilters(boolean offHeap) {
+        LTMatchTable table = LTMatchTable.builder().initialCapacity(2).offHeap(offHeap).build();
+
+        table.add("a", LTResponse.builder().matches(List.of(
+                match(0, "TYPO", "TYPOS", "misspelling"),
+                match(10, "CASE", "CASING", "typographical"),
+                match(20, "TYPO", "TYPOS", "misspelling"))).build());
+        List<LTMatch> second = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            second.add(match(i, i % 2 == 0 ? "TYPO" : "OTHER_TYPO", "TYPOS", "misspelling"));
+        second.add(LTMatch.builder().offset(500).build());
+        table.add("b", second);
+
+        assertEquals(104, table.size());
+        assertEquals(2, table.getDocumentCount());
+        assertEquals("b", table.getDocument(103));
+        assertEquals(500, table.getOffset(103));
+        assertNull(table.getRuleId(103));
+        assertEquals("CASE", table.getRuleId(1));
+        assertEquals(3, table.getLength(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.getOffset(104));
+
+        Map<String, Long> byRule = table.countByRule();
+        assertEquals(Arrays.asList("TYPO", "OTHER_TYPO"), new ArrayList<>(byRule.keySet()).subList(0, 2));
+        assertEquals(1, byRule.get(null));
+        assertEquals(52, byRule.get("TYPO"));
+        assertEquals(102, table.countByCategory().get("TYPOS"));
+
+        int[] typographical = table.selectByIssueType("typographical");
+        assertArrayEquals(new int[]{1}, typographical);
+        assertEquals(Map.of("CASE", 1L), table.countByRule(typographical));
+        assertEquals(102, table.selectByIssueType("misspelling").length);
+        assertEquals(0, table.selectByIssueType("grammar").length);
+    }
+
+    /**
+     * claims to hold many matches, the table must refuse them before iterating
+     */
+    private static Collection<LTMatch> sized(int size) {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<LTMatch> iterator() {
+                throw new AssertionError("not expected to be iterated");
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void refusesRowsPastTheMaxCapacity(boolean offHeap) {
+        LTMatchTable table = LTMatchTable.builder().initialCapacity(2).offHeap(offHeap).build();
+        table.add("a", List.of(match(0, "R", "C", "misspelling")));
+
+        assertThrows(IllegalStateException.class, () -> table.add("b", sized(Integer.MAX_VALUE)));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void offHeapCapacityIsLimitedByBufferSize() {
+        LTMatchTable table = LTMatchTable.builder().offHeap(true).build();
+
+        assertThrows(IllegalStateException.class, () -> table.add("a", sized(LTMatchTable.MAX_OFF_HEAP_CAPACITY + 1)));
+        assertThrows(IllegalArgumentException.class, () -> LTMatchTable.builder().offHeap(true).initialCapacity(LTMatchTable.MAX_OFF_HEAP_CAPACITY + 1).build());
+    }
+}
@@ -0,0 +1,106 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LTRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void queuesRequestsOverTheRequestBudget() throws LTQuotaExceededException, LTRequestTooLargeException {
+        AtomicLong now = new AtomicLong();
+        LTRateLimiter limiter = new LTRateLimiter(60, 0, LTRateLimiter.Mode.QUEUE, now::get);
+
+        for (int i = 0; i < 60; i++)
+            assertEquals(0, limiter.reserve("key", 10));
+
+        //one request per second is refilled, each waiting request reserves the next one
+        assertEquals(SECOND, limiter.reserve("key", 10));
+        assertEquals(2 * SECOND, limiter.reserve("key", 10));
+
+        now.addAndGet(3 * SECOND);
+        assertEquals(0, limiter.reserve("key", 10));
+    }
+
+    @Test
+    void budgetsCharacters() throws LTQuotaExceededException, LTRequestTooLargeException {
+        AtomicLong now = new AtomicLong();
+        LTRateLimiter limiter = new LTRateLimiter(0, 6000, LTRateLimiter.Mode.QUEUE, now::get);
+
+        assertEquals(0, limiter.reserve("key", 5000));
+        assertEquals(40 * SECOND, limiter.reserve("key", 5000));
+    }
+
+    @Test
+    void failsFastWithoutConsumingTheBudget() throws LTQuotaExceededException, LTRequestTooLargeException {
+        AtomicLong now = new AtomicLong();
+        LTRateLimiter limiter = new LTRateLimiter(1, 0, LTRateLimiter.Mode.FAIL_FAST, now::get);
+
+        assertEquals(0, limiter.reserve("key", 10));
+
+        LTQuotaExceededException e = assertThrows(LTQuotaExceededException.class, () -> limiter.reserve("key", 10));
+        assertEquals(Duration.ofMinutes(1), e.getRetryAfter());
+
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        assertEquals(0, limiter.reserve("key", 10));
+    }
+
+    @Test
+    void rejectsRequestsLargerThanTheBudget() throws LTQuotaExceededException, LTRequestTooLargeException {
+        for (LTRateLimiter.Mode mode : LTRateLimiter.Mode.values()) {
+            LTRateLimiter limiter = new LTRateLimiter(10, 6000, mode, () -> 0);
+
+            LTRequestTooLargeException e = assertThrows(LTRequestTooLargeException.class, () -> limiter.reserve("key", 6001));
+            assertEquals(6001, e.getCharacters());
+            assertEquals(6000, e.getLimit());
+            assertFalse(LTRetryPolicy.builder().build().isRetryable(e));
+
+            //nothing was consumed
+            assertEquals(0, limiter.reserve("key", 6000));
+        }
+    }
+
+    @Test
+    void keepsOneBudgetPerApiKey() throws LTQuotaExceededException, LTRequestTooLargeException {
+        LTRateLimiter limiter = new LTRateLimiter(1, 0, LTRateLimiter.Mode.FAIL_FAST, () -> 0);
+
+        assertEquals(0, limiter.reserve("a", 10));
+        assertEquals(0, limiter.reserve("b", 10));
+        assertEquals(0, limiter.reserve(null, 10));
+        assertThrows(LTQuotaExceededException.class, () -> limiter.reserve("a", 10));
+    }
+}
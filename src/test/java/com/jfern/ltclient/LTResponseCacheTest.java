@@ -0,0 +1,92 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTMatch;
+import com.jfern.ltclient.POJO.LTResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LTResponseCacheTest {
+
+    @Test
+    void countsHitsAndMisses() {
+        LTResponseCache cache = new LTResponseCache(100, Duration.ofMinutes(1));
+        LTResponse response = response(0);
+
+        assertNull(cache.get("a"));
+        cache.put("a", response);
+
+        assertSame(response, cache.get("a"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedByWeight() {
+        LTResponseCache cache = new LTResponseCache(5, Duration.ofMinutes(1));
+
+        cache.put("a", response(1));
+        cache.put("b", response(1));
+        cache.get("a");
+        cache.put("c", response(1));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(4, cache.getWeight());
+    }
+
+    @Test
+    void expiresEntries() {
+        LTResponseCache cache = new LTResponseCache(100, Duration.ZERO);
+
+        cache.put("a", response(0));
+
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void keyDependsOnAllParameters() {
+        assertEquals(LTResponseCache.key("language=en-US&text=abc"), LTResponseCache.key("language=en-US&text=abc"));
+        assertNotEquals(LTResponseCache.key("language=en-US&text=abc"), LTResponseCache.key("language=en-US&text=abc&level=picky"));
+    }
+
+    private static LTResponse response(int matches) {
+        return LTResponse.builder()
+                .matches(Collections.nCopies(matches, LTMatch.builder().build()))
+                .build();
+    }
+}
@@ -0,0 +1,226 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTMatch;
+import com.jfern.ltclient.POJO.LTResponse;
+import com.jfern.ltclient.POJO.LTSoftware;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LTResultStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storesAndReloadsResponses() throws IOException {
+        try (LTResultStore store = LTResultStore.open(directory, 4096)) {
+            store.put("a", response("6.3", "first"));
+            store.put("b", response("6.3", "second"));
+        }
+
+        try (LTResultStore store = LTResultStore.open(directory, 4096)) {
+            assertEquals(2, store.size());
+            assertEquals("first", store.get("a").getMatches().get(0).getMessage());
+            assertEquals("6.3", store.get("b").getSoftware().getVersion());
+            assertNull(store.get("c"));
+        }
+    }
+
+    @Test
+    void rollsSegmentsWhenFull() throws IOException {
+        try (LTResultStore store = LTResultStore.open(directory, 512)) {
+            for (int i = 0; i < 20; i++)
+                store.put("key" + i, response("6.3", "message " + i));
+
+            for (int i = 0; i < 20; i++)
+                assertEquals("message " + i, store.get("key" + i).getMatches().get(0).getMessage());
+        }
+
+        try (var files = Files.list(directory)) {
+            assertTrue(files.count() > 1);
+        }
+    }
+
+    @Test
+    void invalidatesOtherVersions() throws IOException {
+        try (LTResultStore store = LTResultStore.open(directory, 4096)) {
+            store.put("a", response("6.3", "old"));
+            store.retainVersion("6.4");
+            store.put("b", response("6.4", "new"));
+
+            assertNull(store.get("a"));
+            assertNotNull(store.get("b"));
+        }
+
+        try (LTResultStore store = LTResultStore.open(directory, 4096)) {
+            assertEquals("6.4", store.getVersion());
+            assertNull(store.get("a"));
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void compactionKeepsLatestRecords() throws IOException {
+        try (LTResultStore store = LTResultStore.open(directory, 4096)) {
+            store.put("a", response("6.3", "first"));
+            store.put("a", response("6.3", "overwritten"));
+            store.put("b", response("6.3", "second"));
+
+            store.compact();
+
+            assertEquals("overwritten", store.get("a").getMatches().get(0).getMessage());
+            assertEquals("second", store.get("b").getMatches().get(0).getMessage());
+        }
+
+        try (LTResultStore store = LTResultStore.open(directory, 4096)) {
+            assertEquals(2, store.size());
+            assertEquals("overwritten", store.get("a").getMatches().get(0).getMessage());
+        }
+    }
+
+    @Test
+    void dropsRecordsFromTheFirstDamagedOne() throws IOException {
+        try (LTResultStore store = LTResultStore.open(directory, 4096)) {
+            store.put("a", response("6.3", "first"));
+            store.put("b", response("6.3", "second"));
+            store.put("c", response("6.3", "third"));
+        }
+
+        Path segment = directory.resolve("segment-0.ltr");
+        byte[] bytes = Files.readAllBytes(segment);
+        int second = 4 + ByteBuffer.wrap(bytes).getInt(0);
+        bytes[second + 20] ^= 0x55;
+        Files.write(segment, bytes);
+
+        try (LTResultStore store = LTResultStore.open(directory, 4096)) {
+            assertEquals(1, store.size());
+            assertEquals("first", store.get("a").getMatches().get(0).getMessage());
+            assertNull(store.get("b"));
+            assertNull(store.get("c"));
+
+            store.put("d", response("6.3", "after"));
+        }
+
+        try (LTResultStore store = LTResultStore.open(directory, 4096)) {
+            assertEquals(2, store.size());
+            assertNull(store.get("c"));
+            assertEquals("after", store.get("d").getMatches().get(0).getMessage());
+        }
+    }
+
+    @Test
+    void compactionRemovesOldSegments() throws IOException {
+        try (LTResultStore store = LTResultStore.open(directory, 512)) {
+            for (int i = 0; i < 10; i++)
+                store.put("key", response("6.3", "message " + i));
+
+            store.compact();
+            assertEquals("message 9", store.get("key").getMatches().get(0).getMessage());
+        }
+
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of("segment-"), files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith("segment-"))
+                    .map(name -> name.substring(0, 8))
+                    .toList());
+        }
+
+        try (LTResultStore store = LTResultStore.open(directory, 512)) {
+            assertEquals(1, store.size());
+            assertEquals("message 9", store.get("key").getMatches().get(0).getMessage());
+        }
+    }
+
+    @Test
+    void ignoresSegmentsLeftByCompaction() throws IOException {
+        try (LTResultStore store = LTResultStore.open(directory, 4096)) {
+            store.put("a", response("6.3", "first"));
+        }
+        Path old = directory.resolve("segment-0.ltr");
+        byte[] oldBytes = Files.readAllBytes(old);
+
+        try (LTResultStore store = LTResultStore.open(directory, 4096)) {
+            store.put("a", response("6.3", "replaced"));
+            store.compact();
+        }
+        // as if the old file couldn't be deleted while mapped
+        Files.write(old, oldBytes);
+
+        try (LTResultStore store = LTResultStore.open(directory, 4096)) {
+            assertEquals("replaced", store.get("a").getMatches().get(0).getMessage());
+        }
+        assertFalse(Files.exists(old));
+    }
+
+    @Test
+    void loadsAllSegmentsWhenTheFirstSegmentFileIsDamaged() throws IOException {
+        try (LTResultStore store = LTResultStore.open(directory, 4096)) {
+            store.put("a", response("6.3", "first"));
+            store.compact();
+        }
+        Files.writeString(directory.resolve("first-segment"), "1\u0000");
+
+        try (LTResultStore store = LTResultStore.open(directory, 4096)) {
+            assertEquals("first", store.get("a").getMatches().get(0).getMessage());
+        }
+    }
+
+    @Test
+    void rejectsUseAfterClose() throws IOException {
+        LTResultStore store = LTResultStore.open(directory, 4096);
+        store.put("a", response("6.3", "first"));
+        store.close();
+        store.close();
+
+        assertThrows(IllegalStateException.class, () -> store.put("b", response("6.3", "second")));
+        assertThrows(IllegalStateException.class, () -> store.get("a"));
+        assertThrows(IllegalStateException.class, store::compact);
+        assertThrows(IllegalStateException.class, () -> store.retainVersion("6.4"));
+
+        try (LTResultStore reopened = LTResultStore.open(directory, 4096)) {
+            assertEquals(1, reopened.size());
+            assertEquals("first", reopened.get("a").getMatches().get(0).getMessage());
+        }
+    }
+
+    private static LTResponse response(String version, String message) {
+        return LTResponse.builder()
+                .software(LTSoftware.builder().name("LanguageTool").version(version).build())
+                .matches(List.of(LTMatch.builder().message(message).offset(3).length(4).build()))
+                .build();
+    }
+}
@@ -0,0 +1,120 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTMatch;
+import com.jfern.ltclient.POJO.LTResponse;
+import com.jfern.ltclient.POJO.LTRule;
+import com.jfern.ltclient.POJO.LTValue;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LTRuleRegistryTest {
+
+    private static final String RESPONSE = """
+            {
+              "language": {"name": "English (US)", "code": "en-US"},
+              "matches": [
+                {"message": "first", "offset": 0, "length": 3,
+                 "rule": {"id": "REGISTRY_TEST_RULE", "description": "Possible Typo", "issueType": "misspelling",
+                          "urls": [{"value": "https://languagetool.org/"}], "category": {"id": "TYPOS", "name": "Possible Typo"}}},
+                {"message": "second", "offset": 10, "length": 3,
+                 "rule": {"id": "REGISTRY_TEST_RULE", "description": "Possible Typo", "issueType": "misspelling",
+                          "urls": [{"value": "https://languagetool.org/"}], "category": {"id": "TYPOS", "name": "Possible Typo"}}},
+                {"message": "third", "offset": 20, "length": 3,
+                 "rule": {"id": "REGISTRY_TEST_OTHER", "description": "Other", "issueType": "misspelling", "category": {"id": "TYPOS", "name": "Possible Typo"}}}
+              ]
+            }
+            """;
+
+    private static LTResponse parse() {
+        return JsonBodyHandler.toSupplierOfType(new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)), LTResponse.class).get();
+    }
+
+    @Test
+    void sharesRulesAcrossMatchesAndResponses() {
+        List<LTMatch> first = parse().getMatches();
+        List<LTMatch> second = parse().getMatches();
+
+        LTRule rule = first.get(0).getRule();
+        assertSame(rule, first.get(1).getRule());
+        assertSame(rule, second.get(0).getRule());
+        assertNotSame(rule, first.get(2).getRule());
+
+        assertSame(rule.getCategory(), first.get(2).getRule().getCategory());
+        assertSame(rule.getIssueType(), first.get(2).getRule().getIssueType());
+        assertThrows(UnsupportedOperationException.class, () -> rule.getUrls().add(LTValue.builder().value("x").build()));
+    }
+
+    @Test
+    void fullRegistryReturnsRulesAsParsed() {
+        LTRuleRegistry registry = new LTRuleRegistry(1);
+        LTRule a = LTRule.builder().id("A").build();
+        LTRule b = LTRule.builder().id("B").build();
+
+        assertNotSame(a, registry.intern(a));
+        assertSame(registry.intern(a), registry.intern(LTRule.builder().id("A").build()));
+        assertSame(b, registry.intern(b));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void clientsUseTheirOwnRegistry() throws IOException, InterruptedException {
+        LTRuleRegistry registry = new LTRuleRegistry(100);
+        StubHttpClient server = StubHttpClient.answering(form -> StubHttpClient.Reply.ok(RESPONSE));
+
+        try (LTClient client = LTClient.builder().serverURL("http://stub").httpClient(server).ruleRegistry(registry).build()) {
+            LTRule rule = client.check("en-US", "one").getMatches().get(0).getRule();
+
+            assertSame(rule, client.check("en-US", "two").getMatches().get(0).getRule());
+            assertEquals(2, registry.size());
+            assertNotSame(rule, parse().getMatches().get(0).getRule());
+        }
+    }
+
+    @Test
+    void clientsWithoutRegistryKeepRulesAsParsed() throws IOException, InterruptedException {
+        StubHttpClient server = StubHttpClient.answering(form -> StubHttpClient.Reply.ok(RESPONSE));
+
+        try (LTClient client = LTClient.builder().serverURL("http://stub").httpClient(server).build()) {
+            client.setRuleRegistry(null);
+            List<LTMatch> matches = client.check("en-US", "one").getMatches();
+
+            assertNotSame(matches.get(0).getRule(), matches.get(1).getRule());
+            assertEquals(matches.get(0).getRule(), matches.get(1).getRule());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LTSchedulerTest {
+
+    @Test
+    void interactiveRequestsGoBeforeQueuedBulk() {
+        LTScheduler scheduler = LTScheduler.builder().maxConcurrency(2).share(LTPriority.BULK, 1.0).build();
+
+        assertTrue(scheduler.acquire(LTPriority.BULK, null).isDone());
+        assertTrue(scheduler.acquire(LTPriority.BULK, null).isDone());
+
+        CompletableFuture<Void> bulk = scheduler.acquire(LTPriority.BULK, null);
+        CompletableFuture<Void> interactive = scheduler.acquire(LTPriority.INTERACTIVE, null);
+        assertFalse(bulk.isDone());
+        assertFalse(interactive.isDone());
+
+        scheduler.release(LTPriority.BULK);
+        assertTrue(interactive.isDone());
+        assertFalse(bulk.isDone());
+
+        scheduler.release(LTPriority.BULK);
+        assertTrue(bulk.isDone());
+    }
+
+    @Test
+    void bulkShareKeepsSlotsForInteractive() {
+        LTScheduler scheduler = LTScheduler.builder().maxConcurrency(4).share(LTPriority.BULK, 0.5).build();
+
+        assertTrue(scheduler.acquire(LTPriority.BULK, null).isDone());
+        assertTrue(scheduler.acquire(LTPriority.BULK, null).isDone());
+        assertFalse(scheduler.acquire(LTPriority.BULK, null).isDone());
+
+        assertTrue(scheduler.acquire(LTPriority.INTERACTIVE, null).isDone());
+        assertTrue(scheduler.acquire(LTPriority.INTERACTIVE, null).isDone());
+        assertEquals(4, scheduler.getInFlight());
+        assertEquals(1, scheduler.getQueued(LTPriority.BULK));
+    }
+
+    @Test
+    void dropsRequestsPastTheirDeadline() throws InterruptedException {
+        LTScheduler scheduler = LTScheduler.builder().maxConcurrency(1).build();
+        assertTrue(scheduler.acquire(LTPriority.INTERACTIVE, null).isDone());
+
+        CompletableFuture<Void> late = scheduler.acquire(LTPriority.INTERACTIVE, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> late.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(LTDeadlineExceededException.class, e.getCause());
+        assertEquals(0, scheduler.getQueued(LTPriority.INTERACTIVE));
+
+        assertTrue(scheduler.acquire(LTPriority.INTERACTIVE, System.nanoTime() - 1).isCompletedExceptionally());
+    }
+
+    @Test
+    void cancelledWaiterDoesNotTakeASlot() {
+        LTScheduler scheduler = LTScheduler.builder().maxConcurrency(1).build();
+        assertTrue(scheduler.acquire(LTPriority.INTERACTIVE, null).isDone());
+
+        CompletableFuture<Void> cancelled = scheduler.acquire(LTPriority.INTERACTIVE, null);
+        CompletableFuture<Void> next = scheduler.acquire(LTPriority.INTERACTIVE, null);
+        cancelled.cancel(false);
+
+        scheduler.release(LTPriority.INTERACTIVE);
+        assertTrue(next.isDone() && !next.isCompletedExceptionally());
+        assertEquals(1, scheduler.getInFlight());
+    }
+}
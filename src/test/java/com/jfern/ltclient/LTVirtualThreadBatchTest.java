@@ -0,0 +1,58 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LTVirtualThreadBatchTest {
+
+    @Test
+    void reportsFailuresPerTextInOrder() throws InterruptedException {
+        //nothing listens on port 1, every check fails to connect
+        try (LTClient client = new LTClient("http://127.0.0.1:1")) {
+            LTVirtualThreadBatch batch = new LTVirtualThreadBatch(client, 4);
+
+            List<LTBatchResult> results = batch.checkAll("en-US", List.of("one", "two", "three"));
+
+            assertEquals(3, results.size());
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i, results.get(i).getIndex());
+                assertFalse(results.get(i).isSuccess());
+                assertNotNull(results.get(i).getError());
+            }
+        }
+    }
+
+    @Test
+    void detectsVirtualThreadSupport() {
+        assertEquals(Runtime.version().feature() >= 21, LTVirtualThreadBatch.isVirtualThreadsAvailable());
+    }
+}
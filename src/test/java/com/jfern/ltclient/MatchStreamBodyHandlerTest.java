@@ -0,0 +1,73 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTMatch;
+import com.jfern.ltclient.POJO.LTResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatchStreamBodyHandlerTest {
+
+    private static final String RESPONSE = """
+            {
+              "software": {"name": "LanguageTool", "version": "6.4", "apiVersion": 1, "premium": false, "unknown": {"a": [1, 2]}},
+              "warnings": {"incompleteResults": false},
+              "language": {"name": "Portuguese (Portugal)", "code": "pt-PT", "detectedLanguage": {"name": "Portuguese", "code": "pt-PT", "confidence": 1}},
+              "matches": [
+                {"message": "first", "offset": 0, "length": 5, "replacements": [{"value": "Texto"}],
+                 "context": {"text": "TExto exemplo", "offset": 0, "length": 5},
+                 "rule": {"id": "UPPERCASE", "description": "d", "issueType": "typographical", "category": {"id": "CASING", "name": "Casing"}}},
+                {"message": "second", "offset": 14, "length": 8, "replacements": []}
+              ]
+            }
+            """;
+
+    @Test
+    void streamsMatchesInOrder() throws IOException {
+        List<LTMatch> matches = new ArrayList<>();
+
+        LTResponse response = MatchStreamBodyHandler.parse(new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)), matches::add);
+
+        assertEquals(2, matches.size());
+        assertEquals("first", matches.get(0).getMessage());
+        assertEquals("CASING", matches.get(0).getRule().getCategory().getId());
+        assertEquals(14, matches.get(1).getOffset());
+
+        assertEquals("6.4", response.getSoftware().getVersion());
+        assertEquals("pt-PT", response.getLanguage().getCode());
+        assertTrue(response.getMatches().isEmpty());
+    }
+}
@@ -0,0 +1,223 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryingRequestTest {
+
+    private static final LTRetryPolicy FAST = LTRetryPolicy.builder()
+            .maxAttempts(3)
+            .initialBackoff(Duration.ofMillis(1))
+            .build();
+
+    @Test
+    void retriesOverloadOnAnotherNode() throws Exception {
+        LTNode a = new LTNode("http://a");
+        LTNode b = new LTNode("http://b");
+        List<LTNode> excluded = new ArrayList<>();
+        List<Integer> statuses = new ArrayList<>(List.of(503, 200));
+
+        HttpResponse<String> response = new RetryingRequest<String>(FAST, (exclude, selected) -> {
+            excluded.add(exclude);
+            selected.accept(exclude == a ? b : a);
+            return CompletableFuture.completedFuture(new StubResponse(statuses.remove(0), Map.of()));
+        }, null).start().getResult().get(5, TimeUnit.SECONDS);
+
+        assertEquals(200, response.statusCode());
+        assertNull(excluded.get(0));
+        assertSame(a, excluded.get(1));
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Exception {
+        int[] attempts = new int[1];
+
+        HttpResponse<String> response = new RetryingRequest<String>(FAST, (exclude, selected) -> {
+            attempts[0]++;
+            return CompletableFuture.completedFuture(new StubResponse(502, Map.of()));
+        }, null).start().getResult().get(5, TimeUnit.SECONDS);
+
+        assertEquals(502, response.statusCode());
+        assertEquals(3, attempts[0]);
+    }
+
+    @Test
+    void doesNotRetryClientErrorsOrLongRetryAfter() throws Exception {
+        int[] attempts = new int[1];
+
+        assertEquals(400, new RetryingRequest<String>(FAST, (exclude, selected) -> {
+            attempts[0]++;
+            return CompletableFuture.completedFuture(new StubResponse(400, Map.of()));
+        }, null).start().getResult().get(5, TimeUnit.SECONDS).statusCode());
+
+        assertEquals(429, new RetryingRequest<String>(FAST, (exclude, selected) -> {
+            attempts[0]++;
+            return CompletableFuture.completedFuture(new StubResponse(429, Map.of("Retry-After", List.of("3600"))));
+        }, null).start().getResult().get(5, TimeUnit.SECONDS).statusCode());
+
+        assertEquals(2, attempts[0]);
+    }
+
+    @Test
+    void hedgesSlowAttemptAndCancelsTheLoser() throws Exception {
+        LTRetryPolicy policy = LTRetryPolicy.builder()
+                .hedgePercentile(0.9)
+                .minHedgeDelay(Duration.ofMillis(1))
+                .build();
+        for (int i = 0; i < LTRetryPolicy.MIN_HEDGE_SAMPLES; i++)
+            policy.recordLatency(TimeUnit.MILLISECONDS.toNanos(5));
+
+        ConcurrentLinkedQueue<CompletableFuture<HttpResponse<String>>> sent = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<HttpResponse<String>> discarded = new ConcurrentLinkedQueue<>();
+
+        HttpResponse<String> response = new RetryingRequest<String>(policy, (exclude, selected) -> {
+            //the first attempt never answers, the hedged one answers right away
+            CompletableFuture<HttpResponse<String>> future = sent.isEmpty() ? new CompletableFuture<>()
+                    : CompletableFuture.completedFuture(new StubResponse(200, Map.of()));
+            sent.add(future);
+            return future;
+        }, discarded::add).start().getResult().get(5, TimeUnit.SECONDS);
+
+        assertEquals(200, response.statusCode());
+        assertEquals(2, sent.size());
+        //the waiting thread can wake up before the loser is cancelled
+        assertThrows(CancellationException.class, () -> sent.peek().get(5, TimeUnit.SECONDS));
+        assertTrue(discarded.isEmpty());
+    }
+
+    @Test
+    void parsesRetryAfter() {
+        assertEquals(Duration.ofSeconds(120), LTRetryPolicy.retryAfter(HttpHeaders.of(Map.of("Retry-After", List.of("120")), (k, v) -> true)));
+        assertNull(LTRetryPolicy.retryAfter(HttpHeaders.of(Map.of(), (k, v) -> true)));
+        assertEquals(Duration.ZERO, LTRetryPolicy.retryAfter(HttpHeaders.of(Map.of("Retry-After", List.of("Wed, 21 Oct 2015 07:28:00 GMT")), (k, v) -> true)));
+    }
+
+    @Test
+    void backoffStaysUnderTheCap() {
+        LTRetryPolicy policy = LTRetryPolicy.builder()
+                .initialBackoff(Duration.ofMillis(100))
+                .maxBackoff(Duration.ofMillis(300))
+                .build();
+
+        for (int attempt = 1; attempt < 10; attempt++) {
+            long wait = policy.backoffNanos(attempt, null);
+            assertTrue(wait >= 0 && wait <= TimeUnit.MILLISECONDS.toNanos(attempt == 1 ? 100 : attempt == 2 ? 200 : 300));
+        }
+
+        assertTrue(policy.backoffNanos(1, Duration.ofMillis(250)) >= TimeUnit.MILLISECONDS.toNanos(250));
+        assertEquals(-1, policy.backoffNanos(1, Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void largeBackoffDoesNotOverflow() {
+        LTRetryPolicy policy = LTRetryPolicy.builder()
+                .maxAttempts(100)
+                .initialBackoff(Duration.ofDays(365))
+                .maxBackoff(Duration.ofDays(3650))
+                .build();
+
+        for (int attempt = 1; attempt < 100; attempt++) {
+            long wait = policy.backoffNanos(attempt, null);
+            assertTrue(wait > 0 && wait <= Duration.ofDays(3650).toNanos(), "attempt " + attempt + " waits " + wait);
+        }
+    }
+
+
+    private static class StubResponse implements HttpResponse<String> {
+
+        private final int statusCode;
+        private final HttpHeaders headers;
+
+        StubResponse(int statusCode, Map<String, List<String>> headers) {
+            this.statusCode = statusCode;
+            this.headers = HttpHeaders.of(headers, (k, v) -> true);
+        }
+
+        @Override
+        public int statusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public HttpRequest request() {
+            return null;
+        }
+
+        @Override
+        public Optional<HttpResponse<String>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return headers;
+        }
+
+        @Override
+        public String body() {
+            return "";
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return URI.create("http://localhost");
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+}
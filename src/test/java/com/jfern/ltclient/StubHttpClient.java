@@ -0,0 +1,316 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import java.io.ByteArrayOutputStream;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+
+/**
+ * HttpClient answering from a function instead of the network, to test LTClient without a server.
+ * The responder gets the form fields of the request (or the URI path for GET requests, under "path")
+ * and returns the reply, possibly later; each future returned by sendAsync is kept in {@link #sent}.
+ */
+class StubHttpClient extends HttpClient {
+
+    static final String NO_MATCHES = "{\"language\":{\"name\":\"English (US)\",\"code\":\"en-US\"},\"matches\":[]}";
+
+    final List<Map<String, String>> requests = new CopyOnWriteArrayList<>();
+    final List<CompletableFuture<?>> sent = new CopyOnWriteArrayList<>();
+
+    private final Function<Map<String, String>, CompletableFuture<Reply>> responder;
+
+
+    StubHttpClient(Function<Map<String, String>, CompletableFuture<Reply>> responder) {
+        this.responder = responder;
+    }
+
+
+    /**
+     * @return a client answering every request right away with the reply
+     */
+    static StubHttpClient answering(Function<Map<String, String>, Reply> responder) {
+        return new StubHttpClient(form -> CompletableFuture.completedFuture(responder.apply(form)));
+    }
+
+
+    static class Reply {
+
+        final int status;
+        final byte[] body;
+
+        Reply(int status, String body) {
+            this.status = status;
+            this.body = body.getBytes(StandardCharsets.UTF_8);
+        }
+
+        static Reply ok(String json) {
+            return new Reply(200, json);
+        }
+    }
+
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        Map<String, String> form = request.bodyPublisher().map(StubHttpClient::form).orElseGet(HashMap::new);
+        if ("GET".equals(request.method()))
+            form.put("path", request.uri().getPath());
+        requests.add(form);
+
+        CompletableFuture<HttpResponse<T>> response = new CompletableFuture<>();
+        sent.add(response);
+        responder.apply(form).whenComplete((reply, throwable) -> {
+            if (throwable != null)
+                response.completeExceptionally(throwable);
+            else
+                deliver(request, handler, reply).whenComplete((value, error) -> {
+                    if (error != null)
+                        response.completeExceptionally(error);
+                    else
+                        response.complete(value);
+                });
+        });
+        return response;
+    }
+
+
+    private static <T> CompletableFuture<HttpResponse<T>> deliver(HttpRequest request, HttpResponse.BodyHandler<T> handler, Reply reply) {
+        HttpHeaders headers = HttpHeaders.of(Map.of(), (name, value) -> true);
+        HttpResponse.BodySubscriber<T> subscriber = handler.apply(new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return reply.status;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return headers;
+            }
+
+            @Override
+            public Version version() {
+                return Version.HTTP_1_1;
+            }
+        });
+
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        subscriber.onNext(List.of(ByteBuffer.wrap(reply.body)));
+        subscriber.onComplete();
+
+        return subscriber.getBody().toCompletableFuture().thenApply(body -> new StubResponse<>(request, reply.status, headers, body));
+    }
+
+
+    private static Map<String, String> form(HttpRequest.BodyPublisher publisher) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer item) {
+                byte[] chunk = new byte[item.remaining()];
+                item.get(chunk);
+                bytes.writeBytes(chunk);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.join();
+
+        Map<String, String> values = new HashMap<>();
+        for (String pair : bytes.toString(StandardCharsets.US_ASCII).split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0)
+                values.put(pair.substring(0, equals), URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        return sendAsync(request, handler).join();
+    }
+
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler, HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+        return sendAsync(request, handler);
+    }
+
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() {
+        return Optional.empty();
+    }
+
+
+    @Override
+    public Optional<Duration> connectTimeout() {
+        return Optional.empty();
+    }
+
+
+    @Override
+    public Redirect followRedirects() {
+        return Redirect.NEVER;
+    }
+
+
+    @Override
+    public Optional<ProxySelector> proxy() {
+        return Optional.empty();
+    }
+
+
+    @Override
+    public SSLContext sslContext() {
+        return null;
+    }
+
+
+    @Override
+    public SSLParameters sslParameters() {
+        return null;
+    }
+
+
+    @Override
+    public Optional<Authenticator> authenticator() {
+        return Optional.empty();
+    }
+
+
+    @Override
+    public Version version() {
+        return Version.HTTP_1_1;
+    }
+
+
+    @Override
+    public Optional<Executor> executor() {
+        return Optional.empty();
+    }
+
+
+    private static class StubResponse<T> implements HttpResponse<T> {
+
+        private final HttpRequest request;
+        private final int statusCode;
+        private final HttpHeaders headers;
+        private final T body;
+
+        StubResponse(HttpRequest request, int statusCode, HttpHeaders headers, T body) {
+            this.request = request;
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        public int statusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public HttpRequest request() {
+            return request;
+        }
+
+        @Override
+        public Optional<HttpResponse<T>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return headers;
+        }
+
+        @Override
+        public T body() {
+            return body;
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return request.uri();
+        }
+
+        @Override
+        public Version version() {
+            return Version.HTTP_1_1;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.POJO.LTContext;
+import com.jfern.ltclient.POJO.LTMatch;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextChunkerTest {
+
+    @Test
+    void splitsOnParagraphs() {
+        String text = "First paragraph.\n\nSecond paragraph.\n\nThird paragraph.";
+
+        List<Integer> ends = TextChunker.split(text, 40, Locale.ENGLISH);
+
+        assertEquals(List.of(37, text.length()), ends);
+        assertEquals("First paragraph.\n\nSecond paragraph.\n\n", text.substring(0, ends.get(0)));
+    }
+
+    @Test
+    void splitsOnSentencesWhenParagraphIsTooLarge() {
+        String text = "One sentence here. Another sentence here. And a third one.";
+
+        List<Integer> ends = TextChunker.split(text, 30, Locale.ENGLISH);
+
+        assertEquals("One sentence here. ", text.substring(0, ends.get(0)));
+        assertEquals(text.length(), ends.get(ends.size() - 1));
+        int start = 0;
+        for (int end : ends) {
+            assertTrue(end - start <= 30);
+            start = end;
+        }
+    }
+
+    @Test
+    void keepsSurrogatePairsWholeWithOneCharChunks() {
+        String text = "\uD83D\uDE00\uD83D\uDE00a";
+
+        List<Integer> ends = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> TextChunker.split(text, 1, Locale.ROOT));
+
+        assertEquals(List.of(2, 4, 5), ends);
+    }
+
+    @Test
+    void smallTextIsOneChunk() {
+        assertEquals(List.of(5), TextChunker.split("small", 10, Locale.ROOT));
+    }
+
+    @Test
+    void splitsParagraphsKeepingSeparators() {
+        String text = "First line\nsame paragraph.\n\n\nSecond.\r\n\r\nThird";
+
+        List<Integer> ends = TextChunker.paragraphs(text);
+
+        assertEquals(3, ends.size());
+        assertEquals("First line\nsame paragraph.\n\n\n", text.substring(0, ends.get(0)));
+        assertEquals("Second.\r\n\r\n", text.substring(ends.get(0), ends.get(1)));
+        assertEquals("Third", text.substring(ends.get(1)));
+    }
+
+    @Test
+    void relocatesMatchAndContext() {
+        String document = "Some text before. This is an errorr in the text.";
+        int chunkStart = 18;
+
+        LTMatch match = LTMatch.builder()
+                .offset(11)
+                .length(6)
+                .context(LTContext.builder().text("...is an errorr in").offset(9).length(6).build())
+                .build();
+
+        LTMatch relocated = TextChunker.relocate(match, chunkStart, document);
+
+        assertEquals(29, relocated.getOffset());
+        assertEquals("errorr", document.substring(relocated.getOffset(), relocated.getOffset() + relocated.getLength()));
+        LTContext context = relocated.getContext();
+        assertEquals("errorr", context.getText().substring(context.getOffset(), context.getOffset() + context.getLength()));
+        assertEquals("is is an errorr in", context.getText());
+    }
+}
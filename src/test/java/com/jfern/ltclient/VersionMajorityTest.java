@@ -0,0 +1,65 @@
+package com.jfern.ltclient;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class VersionMajorityTest {
+
+    @Test
+    void firstVersionIsTheMajority() {
+        VersionMajority majority = new VersionMajority(4);
+        assertEquals("6.3", majority.add("6.3"));
+        assertEquals("6.3", majority.add("6.3"));
+    }
+
+    @Test
+    void alternatingVersionsKeepTheMajority() {
+        VersionMajority majority = new VersionMajority(4);
+        majority.add("6.3");
+        majority.add("6.3");
+        majority.add("6.3");
+
+        assertEquals("6.3", majority.add("6.4"));
+        assertEquals("6.3", majority.add("6.3"));
+        assertNull(majority.add("6.4"));
+    }
+
+    @Test
+    void followsTheNewVersionOnceMostServersRunIt() {
+        VersionMajority majority = new VersionMajority(4);
+        for (int i = 0; i < 4; i++)
+            majority.add("6.3");
+
+        assertEquals("6.3", majority.add("6.4"));
+        assertNull(majority.add("6.4"));
+        assertEquals("6.4", majority.add("6.4"));
+    }
+}
@@ -0,0 +1,218 @@
+package com.jfern.ltclient.testsupport;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.LTClient;
+import com.jfern.ltclient.LTHistogram;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open loop load generator: sends checks at a fixed rate whatever the response times, as real users do.
+ * <p>
+ * A closed loop (send the next check when the previous one completes) slows down with the server and hides its latency
+ * (coordinated omission). Here each check has an intended send time, and its latency is measured from that time,
+ * so a stalled client or server shows up in the percentiles.
+ * <p>
+ * The same texts are sent over and over, use a client with request coalescing (and caches) disabled,
+ * or checks in flight are joined instead of reaching the server.
+ * Example:
+ * <pre>{@code
+ * LTLoadReport report = LTLoadGenerator.builder()
+ *         .client(client)
+ *         .rate(500)
+ *         .duration(Duration.ofSeconds(30))
+ *         .build()
+ *         .run();
+ * }</pre>
+ */
+@Slf4j
+public class LTLoadGenerator {
+
+    private static final String DEFAULT_TEXT = "This is a example text with a error. It should be checked by the the server.";
+
+    private final LTClient client;
+    private final double rate;
+    private final Duration duration;
+    private final Duration warmup;
+    private final int maxInFlight;
+    private final String language;
+    private final List<String> texts;
+
+
+    /**
+     * @param client      the client to load
+     * @param rate        checks per second
+     * @param duration    how long to send checks
+     * @param warmup      how long to send checks before, without measuring them (class loading, JIT, connections), default none
+     * @param maxInFlight checks waiting for a response above which new checks are dropped (and counted), default 10000
+     * @param language    language of the checks, default en-US
+     * @param texts       texts to check in turn, default a short sentence
+     */
+    @Builder
+    private LTLoadGenerator(@NonNull LTClient client, double rate, @NonNull Duration duration, Duration warmup, Integer maxInFlight, String language, List<String> texts) {
+        if (rate <= 0)
+            throw new IllegalArgumentException("rate <= 0");
+
+        this.client = client;
+        this.rate = rate;
+        this.duration = duration;
+        this.warmup = warmup;
+        this.maxInFlight = maxInFlight != null ? maxInFlight : 10_000;
+        this.language = language != null ? language : "en-US";
+        this.texts = texts != null && !texts.isEmpty() ? List.copyOf(texts) : List.of(DEFAULT_TEXT);
+    }
+
+
+    /**
+     * Sends the checks, then waits for the pending ones (at most one more duration).
+     *
+     * @return the report of the run
+     */
+    public LTLoadReport run() throws InterruptedException {
+        if (warmup != null && !warmup.isZero())
+            run(warmup);
+        return run(duration);
+    }
+
+
+    private LTLoadReport run(Duration duration) throws InterruptedException {
+        LTHistogram latency = new LTHistogram();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong lastCompletion = new AtomicLong();
+        long sent = 0;
+        long dropped = 0;
+
+        double intervalNanos = 1e9 / rate;
+        long total = (long) (duration.toNanos() / intervalNanos);
+        long start = System.nanoTime();
+
+        for (long i = 0; i < total; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0)
+                LockSupport.parkNanos(wait);
+            if (Thread.interrupted())
+                throw new InterruptedException();
+
+            if (!inFlight.tryAcquire()) {
+                dropped++;
+                continue;
+            }
+
+            sent++;
+            client.checkAsyncResponse(language, texts.get((int) (i % texts.size()))).whenComplete((response, e) -> {
+                long now = System.nanoTime();
+                lastCompletion.accumulateAndGet(now, Math::max);
+                if (e == null) {
+                    latency.record(now - intended);
+                    completed.incrementAndGet();
+                } else {
+                    log.debug("check failed", e);
+                    errors.incrementAndGet();
+                }
+                inFlight.release();
+            });
+        }
+
+        if (!inFlight.tryAcquire(maxInFlight, duration.toNanos(), TimeUnit.NANOSECONDS))
+            log.warn("{} checks still pending", maxInFlight - inFlight.availablePermits());
+
+        return LTLoadReport.builder()
+                .sent(sent)
+                .completed(completed.get())
+                .errors(errors.get())
+                .dropped(dropped)
+                .elapsed(Duration.ofNanos(Math.max(0, lastCompletion.get() - start)))
+                .latency(latency)
+                .build();
+    }
+
+
+    /**
+     * Runs a load test from the command line: {@code LTLoadGenerator <checks per second> <seconds> [server URL]}.
+     * Without a server URL, the checks go to an {@link LTStubServer} with a log-normal latency (median 5 ms, p99 50 ms).
+     * The checks of the first seconds (at most 5) only warm up the client and are not reported.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("usage: LTLoadGenerator <checks per second> <seconds> [server URL]");
+            System.exit(2);
+        }
+
+        double rate = Double.parseDouble(args[0]);
+        Duration duration = Duration.ofSeconds(Long.parseLong(args[1]));
+
+        LTStubServer stub = null;
+        LTClient client;
+        if (args.length > 2) {
+            client = LTClient.builder()
+                    .serverURL(args[2])
+                    .requestCoalescing(false)
+                    .build();
+        } else {
+            //see LTStubServer, must be set before the first server is created
+            if (System.getProperty("sun.net.httpserver.nodelay") == null)
+                System.setProperty("sun.net.httpserver.nodelay", "true");
+            stub = LTStubServer.builder()
+                    .latency(LatencyDistribution.logNormal(Duration.ofMillis(5), Duration.ofMillis(50)))
+                    .build();
+            //the stub only speaks HTTP/1.1, an HTTP/2 client would try an h2c upgrade on each new connection
+            client = LTClient.builder()
+                    .serverURL(stub.getUrl())
+                    .httpVersion(HttpClient.Version.HTTP_1_1)
+                    .requestCoalescing(false)
+                    .build();
+        }
+
+        try {
+            LTLoadReport report = LTLoadGenerator.builder()
+                    .client(client)
+                    .rate(rate)
+                    .duration(duration)
+                    .warmup(Duration.ofSeconds(Math.min(5, duration.toSeconds())))
+                    .build()
+                    .run();
+            System.out.println(report);
+        } finally {
+            client.close();
+            if (stub != null)
+                stub.close();
+        }
+    }
+}
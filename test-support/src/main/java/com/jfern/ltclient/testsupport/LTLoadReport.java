@@ -0,0 +1,94 @@
+package com.jfern.ltclient.testsupport;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.LTHistogram;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Result of an {@link LTLoadGenerator} run.
+ * Latencies are measured from the time each check should have been sent, so they include the time spent waiting in the client.
+ */
+@Getter
+@Builder
+public class LTLoadReport {
+
+    /**
+     * Checks sent.
+     */
+    private final long sent;
+
+    /**
+     * Checks completed with a response.
+     */
+    private final long completed;
+
+    /**
+     * Checks completed with an exception.
+     */
+    private final long errors;
+
+    /**
+     * Checks not sent because maxInFlight checks were already waiting for a response.
+     */
+    private final long dropped;
+
+    /**
+     * Time from the first check sent to the last one completed.
+     */
+    private final Duration elapsed;
+
+    /**
+     * Latency of the completed checks, in nanoseconds.
+     */
+    private final LTHistogram latency;
+
+
+    /**
+     * @return completed checks per second
+     */
+    public double getThroughput() {
+        return elapsed.isZero() ? 0 : completed * 1e9 / elapsed.toNanos();
+    }
+
+
+    @Override
+    public String toString() {
+        return String.format("sent=%d completed=%d errors=%d dropped=%d elapsed=%.1fs throughput=%.1f/s latency: p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms",
+                sent, completed, errors, dropped, elapsed.toMillis() / 1000.0, getThroughput(),
+                millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(90)), millis(latency.getValueAtPercentile(99)),
+                millis(latency.getValueAtPercentile(99.9)), millis(latency.getMax()));
+    }
+
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
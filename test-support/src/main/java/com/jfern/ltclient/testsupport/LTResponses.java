@@ -0,0 +1,106 @@
+package com.jfern.ltclient.testsupport;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Generates /v2/check and /v2/languages responses in the format of LanguageTool 6.
+ */
+public final class LTResponses {
+
+    private static final String[][] RULES = {
+            {"MORFOLOGIK_RULE_EN_US", "TYPOS", "Possible Typo", "misspelling", "Possible spelling mistake found."},
+            {"UPPERCASE_SENTENCE_START", "CASING", "Capitalization", "typographical", "This sentence does not start with an uppercase letter."},
+            {"COMMA_PARENTHESIS_WHITESPACE", "TYPOGRAPHY", "Typography", "whitespace", "Don't put a space before the full stop."},
+            {"EN_A_VS_AN", "MISC", "Miscellaneous", "grammar", "Use \\\"an\\\" instead of \\\"a\\\" if the following word starts with a vowel sound."}
+    };
+
+    private static final String LANGUAGES = "["
+            + "{\"name\":\"German (Germany)\",\"code\":\"de\",\"longCode\":\"de-DE\"},"
+            + "{\"name\":\"English\",\"code\":\"en\",\"longCode\":\"en\"},"
+            + "{\"name\":\"English (GB)\",\"code\":\"en\",\"longCode\":\"en-GB\"},"
+            + "{\"name\":\"English (US)\",\"code\":\"en\",\"longCode\":\"en-US\"},"
+            + "{\"name\":\"French\",\"code\":\"fr\",\"longCode\":\"fr\"},"
+            + "{\"name\":\"Portuguese\",\"code\":\"pt\",\"longCode\":\"pt\"},"
+            + "{\"name\":\"Portuguese (Brazil)\",\"code\":\"pt\",\"longCode\":\"pt-BR\"},"
+            + "{\"name\":\"Portuguese (Portugal)\",\"code\":\"pt\",\"longCode\":\"pt-PT\"},"
+            + "{\"name\":\"Spanish\",\"code\":\"es\",\"longCode\":\"es\"}"
+            + "]";
+
+    private LTResponses() {
+    }
+
+
+    /**
+     * @param language   the language code echoed in the response
+     * @param textLength length of the checked text, the matches are spread over it
+     * @param matches    number of matches
+     * @return the response body
+     */
+    public static byte[] check(String language, int textLength, int matches) {
+        String code = language == null || language.isEmpty() ? "en-US" : language;
+
+        StringBuilder json = new StringBuilder(256 + matches * 700);
+        json.append("{\"software\":{\"name\":\"LanguageTool\",\"version\":\"6.4\",\"buildDate\":\"2024-03-28 14:27:06 +0100\",\"apiVersion\":1,\"premium\":false,\"status\":\"\"},")
+                .append("\"warnings\":{\"incompleteResults\":false},")
+                .append("\"language\":{\"name\":\"").append(code).append("\",\"code\":\"").append(code)
+                .append("\",\"detectedLanguage\":{\"name\":\"").append(code).append("\",\"code\":\"").append(code).append("\",\"confidence\":0.99}},")
+                .append("\"matches\":[");
+
+        int step = matches == 0 ? 0 : Math.max(1, textLength / matches);
+        for (int i = 0; i < matches; i++) {
+            String[] rule = RULES[i % RULES.length];
+            int offset = Math.min(i * step, Math.max(0, textLength - 1));
+            int length = Math.max(0, Math.min(3, textLength - offset));
+
+            if (i > 0)
+                json.append(',');
+
+            json.append("{\"message\":\"").append(rule[4]).append("\",\"shortMessage\":\"\",")
+                    .append("\"replacements\":[{\"value\":\"the\"},{\"value\":\"tea\"},{\"value\":\"ten\"}],")
+                    .append("\"offset\":").append(offset).append(",\"length\":").append(length).append(',')
+                    .append("\"context\":{\"text\":\"...a sentence with teh error...\",\"offset\":18,\"length\":3},")
+                    .append("\"sentence\":\"A sentence with teh error.\",")
+                    .append("\"type\":{\"typeName\":\"Other\"},")
+                    .append("\"rule\":{\"id\":\"").append(rule[0]).append("\",\"description\":\"").append(rule[2]).append("\",\"issueType\":\"").append(rule[3])
+                    .append("\",\"urls\":[{\"value\":\"https://languagetool.org/insights/\"}],")
+                    .append("\"category\":{\"id\":\"").append(rule[1]).append("\",\"name\":\"").append(rule[2]).append("\"}},")
+                    .append("\"ignoreForIncompleteSentence\":false,\"contextForSureMatch\":0}");
+        }
+
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * @return a /v2/languages response with a few common languages
+     */
+    public static byte[] languages() {
+        return LANGUAGES.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,254 @@
+package com.jfern.ltclient.testsupport;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process HTTP server implementing the LanguageTool endpoints used by LTClient (POST /v2/check and GET /v2/languages),
+ * to test and load test the client without a LanguageTool server or network access.
+ * <p>
+ * Each check is answered after a delay drawn from the latency distribution, without holding a server thread while it waits.
+ * A fraction of the checks (errorRate) fail with errorStatus. The response has a fixed number of matches,
+ * or a number proportional to the text length.
+ * Example:
+ * <pre>{@code
+ * try (LTStubServer server = LTStubServer.builder()
+ *         .latency(LatencyDistribution.logNormal(Duration.ofMillis(20), Duration.ofMillis(200)))
+ *         .errorRate(0.01)
+ *         .matchesPerThousandChars(5.0)
+ *         .build()) {
+ *     LTClient client = new LTClient(server.getUrl());
+ *     ...
+ * }
+ * }</pre>
+ * <p>
+ * The JDK HTTP server doesn't set TCP_NODELAY unless the JVM is started with {@code -Dsun.net.httpserver.nodelay=true}
+ * (it's read once, when the first server is created). Without it the response body waits for the delayed ACK of the
+ * client, adding about 40 ms to each check, which hides the latencies being measured. The surefire tests,
+ * {@link LTLoadGenerator#main(String[])} and the benchmarks set it, other users should pass it to the JVM.
+ */
+@Slf4j
+public class LTStubServer implements AutoCloseable {
+
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final int errorStatus;
+    private final Duration retryAfter;
+    private final int matches;
+    private final Double matchesPerThousandChars;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService responder;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong languageRequests = new AtomicLong();
+
+
+    /**
+     * Creates and starts the server.
+     *
+     * @param port                    port to listen on (on the loopback address), default 0: any free port
+     * @param latency                 delay before answering each check, default none
+     * @param errorRate               fraction (0 to 1) of checks answered with errorStatus, default 0
+     * @param errorStatus             status of the failed checks, default 503
+     * @param retryAfter              Retry-After header of the failed checks, default none
+     * @param matches                 matches in each response, default 5
+     * @param matchesPerThousandChars when set, the number of matches is proportional to the text length instead
+     * @param threads                 threads reading the requests and writing the responses, default 16
+     */
+    @Builder
+    private LTStubServer(Integer port, LatencyDistribution latency, Double errorRate, Integer errorStatus, Duration retryAfter, Integer matches, Double matchesPerThousandChars, Integer threads) throws IOException {
+        this.latency = latency != null ? latency : LatencyDistribution.none();
+        this.errorRate = errorRate != null ? errorRate : 0;
+        this.errorStatus = errorStatus != null ? errorStatus : 503;
+        this.retryAfter = retryAfter;
+        this.matches = matches != null ? matches : 5;
+        this.matchesPerThousandChars = matchesPerThousandChars;
+
+        int threadCount = threads != null ? threads : 16;
+        this.executor = Executors.newFixedThreadPool(threadCount, daemonThreads("LTStubServer"));
+        this.responder = Executors.newScheduledThreadPool(Math.max(1, threadCount / 4), daemonThreads("LTStubServer-responder"));
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port != null ? port : 0), 1024);
+        server.createContext("/v2/check", this::check);
+        server.createContext("/v2/languages", this::languages);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+
+    /**
+     * @return the base URL to give to LTClient, e.g. http://127.0.0.1:41234
+     */
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+
+    /**
+     * @return checks received, including the failed ones
+     */
+    public long getChecks() {
+        return checks.get();
+    }
+
+
+    /**
+     * @return checks answered with the error status
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+
+    public long getLanguageRequests() {
+        return languageRequests.get();
+    }
+
+
+    @Override
+    public void close() {
+        server.stop(0);
+        responder.shutdownNow();
+        executor.shutdownNow();
+    }
+
+
+    private void check(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, new byte[0]);
+            return;
+        }
+
+        Map<String, String> form;
+        try (InputStream body = exchange.getRequestBody()) {
+            form = parseForm(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        checks.incrementAndGet();
+        long delay = latency.nextNanos(ThreadLocalRandom.current());
+
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            errors.incrementAndGet();
+            if (retryAfter != null)
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfter.toSeconds()));
+            later(exchange, delay, errorStatus, "Error: simulated failure".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        String text = form.getOrDefault("text", form.getOrDefault("data", ""));
+        int count = matchesPerThousandChars == null ? matches : (int) Math.round(text.length() / 1000.0 * matchesPerThousandChars);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        later(exchange, delay, 200, LTResponses.check(form.get("language"), text.length(), count));
+    }
+
+
+    private void languages(HttpExchange exchange) throws IOException {
+        languageRequests.incrementAndGet();
+        try (InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        respond(exchange, 200, LTResponses.languages());
+    }
+
+
+    private void later(HttpExchange exchange, long delayNanos, int status, byte[] body) throws IOException {
+        if (delayNanos <= 0) {
+            respond(exchange, status, body);
+            return;
+        }
+
+        responder.schedule(() -> {
+            try {
+                respond(exchange, status, body);
+            } catch (IOException e) {
+                log.debug("client went away", e);
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        try (exchange) {
+            exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+            if (body.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        }
+    }
+
+
+    private static Map<String, String> parseForm(String form) {
+        Map<String, String> values = new HashMap<>();
+        for (String pair : form.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0)
+                values.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8), URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package com.jfern.ltclient.testsupport;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Server side latency simulated by the {@link LTStubServer} for each request.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * @return the delay before answering a request, in nanoseconds
+     */
+    long nextNanos(Random random);
+
+
+    static LatencyDistribution none() {
+        return random -> 0;
+    }
+
+
+    static LatencyDistribution fixed(Duration latency) {
+        long nanos = latency.toNanos();
+        return random -> nanos;
+    }
+
+
+    static LatencyDistribution uniform(Duration min, Duration max) {
+        long minNanos = min.toNanos();
+        long range = max.toNanos() - minNanos;
+        if (range < 0)
+            throw new IllegalArgumentException("max < min");
+
+        return random -> minNanos + (range == 0 ? 0 : (long) (random.nextDouble() * range));
+    }
+
+
+    /**
+     * Log-normal latency, the usual shape of server latencies: most requests near the median and a long tail.
+     *
+     * @param median half of the requests are faster
+     * @param p99    99% of the requests are faster
+     */
+    static LatencyDistribution logNormal(Duration median, Duration p99) {
+        if (p99.compareTo(median) < 0)
+            throw new IllegalArgumentException("p99 < median");
+
+        double mu = Math.log(median.toNanos());
+        //2.326 is the 99th percentile of the standard normal distribution
+        double sigma = Math.log((double) p99.toNanos() / median.toNanos()) / 2.326;
+
+        return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+    }
+}
@@ -0,0 +1,127 @@
+package com.jfern.ltclient.testsupport;
+
+/*-
+ * #%L
+ * LTClient
+ * %%
+ * Copyright (C) 2023 Jorge Fernando Gonçalves
+ * %%
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ * #L%
+ */
+
+import com.jfern.ltclient.LTClient;
+import com.jfern.ltclient.LTLanguageCatalog;
+import com.jfern.ltclient.LTRetryPolicy;
+import com.jfern.ltclient.LTUnsupportedLanguageException;
+import com.jfern.ltclient.POJO.LTResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LTStubServerTest {
+
+    @Test
+    void answersChecks() throws IOException, InterruptedException {
+        try (LTStubServer server = LTStubServer.builder().matches(3).build()) {
+            LTResponse response = new LTClient(server.getUrl()).check("en-US", "This is a example text.");
+
+            assertEquals(3, response.getMatches().size());
+            assertEquals("en-US", response.getLanguage().getCode());
+            assertEquals(1, server.getChecks());
+        }
+    }
+
+    @Test
+    void matchesProportionalToTextLength() throws IOException, InterruptedException {
+        try (LTStubServer server = LTStubServer.builder().matchesPerThousandChars(10.0).build()) {
+            LTResponse response = new LTClient(server.getUrl()).check("en-US", "x".repeat(2000));
+
+            assertEquals(20, response.getMatches().size());
+        }
+    }
+
+    @Test
+    void failuresAreRetried() throws IOException, InterruptedException {
+        try (LTStubServer server = LTStubServer.builder().errorRate(1.0).build()) {
+            LTClient client = new LTClient(server.getUrl());
+            client.setRetryPolicy(LTRetryPolicy.builder()
+                    .maxAttempts(3)
+                    .initialBackoff(Duration.ofMillis(1))
+                    .build());
+
+            assertThrows(IOException.class, () -> client.check("en-US", "text"));
+            assertEquals(3, server.getChecks());
+            assertEquals(3, server.getErrors());
+        }
+    }
+
+    @Test
+    void servesLanguages() throws IOException, InterruptedException {
+        try (LTStubServer server = LTStubServer.builder().build()) {
+            HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create(server.getUrl() + "/v2/languages")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().contains("\"longCode\":\"en-US\""));
+            assertEquals(1, server.getLanguageRequests());
+        }
+    }
+
+    @Test
+    void rejectsUnsupportedLanguagesLocally() throws IOException, InterruptedException {
+        try (LTStubServer server = LTStubServer.builder().build();
+             LTClient client = new LTClient(server.getUrl())) {
+            client.setLanguageCatalog(LTLanguageCatalog.builder().preferredVariant("en", "en-GB").build());
+
+            assertEquals(9, client.getLanguages().size());
+            assertEquals("en-GB", client.check("en", "text").getLanguage().getCode());
+            assertThrows(LTUnsupportedLanguageException.class, () -> client.check("xx", "text"));
+            assertEquals(1, server.getChecks());
+            assertEquals(1, server.getLanguageRequests());
+        }
+    }
+
+    @Test
+    void loadGeneratorMeasuresLatency() throws InterruptedException, IOException {
+        try (LTStubServer server = LTStubServer.builder().latency(LatencyDistribution.fixed(Duration.ofMillis(20))).build()) {
+            LTLoadReport report = LTLoadGenerator.builder()
+                    .client(LTClient.builder().serverURL(server.getUrl()).requestCoalescing(false).build())
+                    .rate(100)
+                    .duration(Duration.ofMillis(500))
+                    .build()
+                    .run();
+
+            assertEquals(50, report.getSent());
+            assertEquals(50, report.getCompleted());
+            assertEquals(0, report.getErrors());
+            assertEquals(50, server.getChecks());
+            assertTrue(report.getLatency().getValueAtPercentile(50) >= Duration.ofMillis(17).toNanos(), report.toString());
+        }
+    }
+}